@@ -0,0 +1,69 @@
+package com.ihrm.report.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 下载接口异步处理：请求线程立即释放，渲染在专用线程池中执行，各接口的超时时间在 asyncConfig.timeout 下配置
+ * <pre>
+ * pdfDownloadExecutor      wkhtmltopdf 转换，大部分时间等待子进程
+ * jasperDownloadExecutor   Jasper 填充、导出，占用 CPU
+ * fileDownloadExecutor     已生成文件的传输
+ * </pre>
+ * 线程池已满时抛出 {@link org.springframework.core.task.TaskRejectedException}，返回 503
+ */
+@Configuration
+public class AsyncDownloadConfig implements WebMvcConfigurer {
+
+    /**
+     * 未单独配置超时时间的异步请求的默认超时（毫秒）
+     */
+    @Value("${asyncConfig.defaultTimeout}")
+    private long defaultTimeout;
+    @Value("${asyncConfig.pdf.threads}")
+    private int pdfThreads;
+    @Value("${asyncConfig.pdf.queueCapacity}")
+    private int pdfQueueCapacity;
+    @Value("${asyncConfig.jasper.threads}")
+    private int jasperThreads;
+    @Value("${asyncConfig.jasper.queueCapacity}")
+    private int jasperQueueCapacity;
+    @Value("${asyncConfig.file.threads}")
+    private int fileThreads;
+    @Value("${asyncConfig.file.queueCapacity}")
+    private int fileQueueCapacity;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(defaultTimeout);
+        configurer.setTaskExecutor(fileDownloadExecutor());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor pdfDownloadExecutor() {
+        return executor("pdf-download-", pdfThreads, pdfQueueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor jasperDownloadExecutor() {
+        return executor("jasper-download-", jasperThreads, jasperQueueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor fileDownloadExecutor() {
+        return executor("file-download-", fileThreads, fileQueueCapacity);
+    }
+
+    private static ThreadPoolTaskExecutor executor(String prefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+}
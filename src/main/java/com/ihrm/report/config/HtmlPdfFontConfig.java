@@ -0,0 +1,25 @@
+package com.ihrm.report.config;
+
+import com.ihrm.report.excelModel.util.HtmlPdfWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * {@link HtmlPdfWriter} 的默认字体列表，在 pdfConfig.fonts 下配置
+ */
+@Configuration
+public class HtmlPdfFontConfig {
+
+    /**
+     * 字体（classpath 或文件路径，或系统字体名称），第一个可用的作为默认字体
+     */
+    @Value("${pdfConfig.fonts}")
+    private String[] fonts;
+
+    @PostConstruct
+    public void init() {
+        HtmlPdfWriter.Pipeline.setFonts(fonts);
+    }
+}
@@ -1,38 +1,223 @@
 package com.ihrm.report.controller;
 
+import com.ihrm.report.enums.ReportFormat;
+import com.ihrm.report.excelModel.enums.ContentType;
+import com.ihrm.report.function.AbortableTask;
+import com.ihrm.report.service.JasperBatchService;
+import com.ihrm.report.service.JasperReportService;
+import com.ihrm.report.service.ProgressiveFillService;
 import net.sf.jasperreports.engine.JREmptyDataSource;
 import net.sf.jasperreports.engine.JasperExportManager;
-import net.sf.jasperreports.engine.JasperFillManager;
-import net.sf.jasperreports.engine.JasperPrint;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.FileInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 public class JasperController {
+
+    @Autowired
+    private JasperReportService jasperReportService;
+    @Autowired
+    private JasperBatchService jasperBatchService;
+    @Autowired
+    private ProgressiveFillService progressiveFillService;
+    @Autowired
+    private AsyncTaskExecutor jasperDownloadExecutor;
+
+    /**
+     * 异步请求超时时间（毫秒）
+     */
+    @Value("${asyncConfig.timeout.jasper}")
+    private long jasperTimeout;
+    @Value("${asyncConfig.timeout.batch}")
+    private long batchTimeout;
+    @Value("${asyncConfig.timeout.stream}")
+    private long streamTimeout;
+    @Value("${asyncConfig.timeout.page}")
+    private long pageTimeout;
+
+    /**
+     * @param virtualize 是否启用交换文件虚拟化器，不传时按模板预估页数自动判断
+     */
     @GetMapping("/testJasper")
-    public void createHtml(HttpServletResponse response, HttpServletRequest request) throws Exception {
-        //引入jasper文件。由JRXML模板编译生成的二进制文件，用于代码填充数据
-        Resource resource = new ClassPathResource("templates/reportDemo1.jasper");
-        //加载jasper文件创建inputStream
-        FileInputStream isRef = new FileInputStream(resource.getFile());
-        ServletOutputStream sosRef = response.getOutputStream();
+    public WebAsyncTask<Void> createHtml(HttpServletResponse response, HttpServletRequest request,
+                                         @RequestParam(required = false) Boolean virtualize) {
+        return AbortableTask.of(jasperTimeout, jasperDownloadExecutor, response, res -> {
+            //填充报表，模板由注册表缓存，不再每次反序列化.jasper文件；相同参数的填充结果也会缓存
+            try (JasperReportService.Filled filled = jasperReportService.fillCached("reportDemo1", new HashMap<>(), JREmptyDataSource::new, virtualize)) {
+                res.setHeader("X-Report-Cache", filled.isCached() ? "HIT" : "MISS");
+                res.setHeader("X-Report-Paged-Out", String.valueOf(filled.getPagedOut()));
+                res.setHeader("X-Report-Swap-Bytes", String.valueOf(filled.getSwapBytes()));
+                ServletOutputStream sosRef = res.getOutputStream();
+                try {
+                    //写入pdf数据
+                    JasperExportManager.exportReportToPdfStream(filled.getPrint(), sosRef);
+                } finally {
+                    sosRef.flush();
+                    sosRef.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 导出报表，格式按以下顺序协商：路径 /jasper/{name}/{format} > 参数 format > 请求头 Accept > 默认 PDF
+     * 导出结果直接写入响应流
+     *
+     * @param name       模板名称
+     * @param format     导出格式：pdf、xlsx、csv、html、docx
+     * @param params     请求参数，按模板中声明的参数名和类型传入报表
+     * @param virtualize 是否启用交换文件虚拟化器
+     */
+    @GetMapping({"/jasper/{name}", "/jasper/{name}/{format}"})
+    public WebAsyncTask<Void> export(HttpServletResponse response,
+                                     @PathVariable String name,
+                                     @PathVariable(required = false) String format,
+                                     @RequestParam Map<String, String> params,
+                                     @RequestParam(required = false) Boolean virtualize,
+                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ReportFormat reportFormat = negotiate(format != null ? format : params.get("format"), accept);
+        return AbortableTask.of(jasperTimeout, jasperDownloadExecutor, response, res -> {
+            try (JasperReportService.Filled filled = jasperReportService.fillCached(name, jasperReportService.parameters(name, params), JREmptyDataSource::new, virtualize)) {
+                res.setHeader("X-Report-Cache", filled.isCached() ? "HIT" : "MISS");
+                res.setContentType(reportFormat.mediaType());
+                res.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(reportFormat.inline, name + reportFormat.extension()));
+                ServletOutputStream sosRef = res.getOutputStream();
+                try {
+                    reportFormat.export(filled.getPrint(), sosRef);
+                } finally {
+                    sosRef.flush();
+                    sosRef.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 批量导出，同一模板按多组参数并发填充，每完成一份立即写入 zip 响应流
+     * 请求体：[{"参数名": "参数值", "fileName": "zip 内文件名"}, ...]
+     *
+     * @param name        模板名称
+     * @param format      导出格式，默认 pdf
+     * @param parallelism 并发数，不超过配置的最大并发数
+     * @param items       每份报表的请求参数
+     */
+    @PostMapping({"/jasper/{name}/batch", "/jasper/{name}/batch/{format}"})
+    public WebAsyncTask<Void> batch(HttpServletResponse response,
+                                    @PathVariable String name,
+                                    @PathVariable(required = false) String format,
+                                    @RequestParam(required = false) Integer parallelism,
+                                    @RequestBody List<Map<String, String>> items) {
+        ReportFormat reportFormat = negotiate(format, null);
+        return AbortableTask.of(batchTimeout, jasperDownloadExecutor, response, res -> {
+            res.setContentType(ContentType.zip.type);
+            res.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(false, name + ContentType.zip.comment));
+            ServletOutputStream sosRef = res.getOutputStream();
+            try {
+                jasperBatchService.export(name, reportFormat, items, parallelism, sosRef);
+            } finally {
+                sosRef.flush();
+                sosRef.close();
+            }
+        });
+    }
+
+    /**
+     * 渐进式 HTML 导出：后台填充，每生成一页立即写出，客户端断开时取消填充
+     *
+     * @param name   模板名称
+     * @param params 请求参数，按模板中声明的参数名和类型传入报表
+     */
+    @GetMapping("/jasper/{name}/stream")
+    public WebAsyncTask<Void> stream(HttpServletResponse response,
+                                     @PathVariable String name,
+                                     @RequestParam Map<String, String> params) {
+        return AbortableTask.of(streamTimeout, jasperDownloadExecutor, response, res -> {
+            try (ProgressiveFillService.Progress progress = open(name, params)) {
+                res.setContentType(ReportFormat.HTML.mediaType());
+                ServletOutputStream sosRef = res.getOutputStream();
+                try {
+                    progressiveFillService.html(progress, sosRef);
+                } finally {
+                    sosRef.flush();
+                    sosRef.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 单页 PNG 预览，该页生成后即可返回，不等待整份报表填充完成
+     *
+     * @param name   模板名称
+     * @param page   页码，从 1 开始
+     * @param zoom   缩放比例，默认 1
+     * @param params 请求参数，按模板中声明的参数名和类型传入报表
+     */
+    @GetMapping("/jasper/{name}/page/{page}")
+    public WebAsyncTask<Void> page(HttpServletResponse response,
+                                   @PathVariable String name,
+                                   @PathVariable int page,
+                                   @RequestParam(defaultValue = "1") float zoom,
+                                   @RequestParam Map<String, String> params) {
+        if (page < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "页码从 1 开始");
+        }
+        return AbortableTask.of(pageTimeout, jasperDownloadExecutor, response, res -> {
+            try (ProgressiveFillService.Progress progress = open(name, params)) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                if (!progressiveFillService.png(progress, page - 1, zoom, bos)) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "页码超出报表总页数：" + progress.getPages());
+                }
+                res.setContentType(ContentType.png.type);
+                res.setContentLength(bos.size());
+                ServletOutputStream sosRef = res.getOutputStream();
+                try {
+                    bos.writeTo(sosRef);
+                } finally {
+                    sosRef.flush();
+                    sosRef.close();
+                }
+            }
+        });
+    }
+
+    private ProgressiveFillService.Progress open(String name, Map<String, String> params) throws Exception {
+        try {
+            return progressiveFillService.open(name, jasperReportService.parameters(name, params));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 在请求线程协商导出格式，不支持的格式直接返回 400，不占用导出线程
+     */
+    private static ReportFormat negotiate(String format, String accept) {
         try {
-            //创建JasperPrint对象
-            JasperPrint jasperPrint = JasperFillManager.fillReport(isRef, new HashMap<>
-                    (), new JREmptyDataSource());
-            //写入pdf数据
-            JasperExportManager.exportReportToPdfStream(jasperPrint, sosRef);
-        } finally {
-            sosRef.flush();
-            sosRef.close();
+            return ReportFormat.negotiate(format, accept);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private static String contentDisposition(boolean inline, String fileName) throws Exception {
+        String encoded = URLEncoder.encode(fileName, "UTF-8").replace("+", "%20");
+        return (inline ? "inline" : "attachment") + "; filename=\"" + encoded + "\"; filename*=UTF-8''" + encoded;
+    }
+}
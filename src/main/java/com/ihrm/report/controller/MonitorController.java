@@ -0,0 +1,65 @@
+package com.ihrm.report.controller;
+
+import com.ihrm.report.service.HtmlToPdfService;
+import com.ihrm.report.service.JasperPrintCache;
+import com.ihrm.report.service.JasperReportService;
+import com.ihrm.report.service.PdfFileCache;
+import com.ihrm.report.service.ReportJobService;
+import com.ihrm.report.service.WarmUpService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 报表服务运行指标
+ */
+@RestController
+public class MonitorController {
+
+    @Autowired
+    private JasperPrintCache jasperPrintCache;
+    @Autowired
+    private JasperReportService jasperReportService;
+    @Autowired
+    private ReportJobService reportJobService;
+    @Autowired
+    private WarmUpService warmUpService;
+    @Autowired
+    private HtmlToPdfService htmlToPdfService;
+    @Autowired
+    private PdfFileCache pdfFileCache;
+
+    /**
+     * 就绪检查：启动预热完成前返回 503
+     */
+    @GetMapping("/monitor/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        return ResponseEntity.status(warmUpService.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(warmUpService.status());
+    }
+
+    @GetMapping("/monitor/jasper")
+    public Map<String, Object> jasper() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("printCache", jasperPrintCache.stats());
+        map.put("virtualizer", jasperReportService.metrics());
+        return map;
+    }
+
+    @GetMapping("/monitor/pdf")
+    public Map<String, Object> pdf() {
+        Map<String, Object> map = new LinkedHashMap<>(htmlToPdfService.metrics());
+        map.put("cache", pdfFileCache.stats());
+        return map;
+    }
+
+    @GetMapping("/monitor/jobs")
+    public Map<String, Object> jobs() {
+        return reportJobService.metrics();
+    }
+}
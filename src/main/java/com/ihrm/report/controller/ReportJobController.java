@@ -0,0 +1,123 @@
+package com.ihrm.report.controller;
+
+import com.ihrm.report.enums.ReportFormat;
+import com.ihrm.report.excelModel.exception.NotFoundException;
+import com.ihrm.report.function.AbortableTask;
+import com.ihrm.report.function.FileUtil;
+import com.ihrm.report.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 报表异步任务：POST 提交，GET 轮询状态，完成后下载结果文件
+ */
+@RestController
+@RequestMapping("/jobs")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+    @Autowired
+    private AsyncTaskExecutor fileDownloadExecutor;
+
+    /**
+     * 结果文件下载的异步请求超时时间（毫秒）
+     */
+    @Value("${asyncConfig.timeout.jobFile}")
+    private long downloadTimeout;
+
+    /**
+     * 提交 Jasper 报表任务
+     *
+     * @param name       模板名称
+     * @param format     导出格式：pdf、xlsx、csv、html、docx
+     * @param params     请求参数，按模板中声明的参数名和类型传入报表
+     * @param virtualize 是否启用交换文件虚拟化器
+     */
+    @PostMapping({"/jasper/{name}", "/jasper/{name}/{format}"})
+    public ReportJobService.Job submitJasper(@PathVariable String name,
+                                             @PathVariable(required = false) String format,
+                                             @RequestParam Map<String, String> params,
+                                             @RequestParam(required = false) Boolean virtualize) {
+        ReportFormat reportFormat = ReportFormat.negotiate(format != null ? format : params.get("format"), null);
+        try {
+            return reportJobService.submitJasper(name, reportFormat, params, virtualize);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "任务队列已满，请稍后重试", e);
+        }
+    }
+
+    /**
+     * 提交 html 转 pdf 任务
+     *
+     * @param reportCoded 报表编码
+     */
+    @PostMapping("/pdf/{reportCoded}")
+    public ReportJobService.Job submitPdf(@PathVariable String reportCoded) {
+        try {
+            return reportJobService.submitPdf(reportCoded);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "任务队列已满，请稍后重试", e);
+        }
+    }
+
+    /**
+     * 查询任务状态和进度
+     *
+     * @param id 任务号
+     */
+    @GetMapping("/{id}")
+    public ReportJobService.Job get(@PathVariable String id) {
+        try {
+            return reportJobService.get(id);
+        } catch (NotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 下载任务结果文件，支持 Range 断点续传；任务未完成返回 409，文件已淘汰返回 410
+     * <pre>
+     * 容器支持 sendfile 时同步返回，由容器零拷贝发送（Tomcat 异步请求不支持 sendfile）；否则转入异步线程复制
+     * </pre>
+     *
+     * @param id 任务号
+     */
+    @GetMapping("/{id}/file")
+    public WebAsyncTask<Void> download(HttpServletRequest request, HttpServletResponse response, @PathVariable String id) throws IOException {
+        ReportJobService.Job job = get(id);
+        switch (job.getState()) {
+            case DONE:
+                break;
+            case EVICTED:
+                throw new ResponseStatusException(HttpStatus.GONE, "任务结果已过期，请重新提交");
+            default:
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "任务未完成：" + job.getState());
+        }
+        File file = reportJobService.file(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE, "任务结果已过期，请重新提交"));
+        // 任务结果文件生成后不再变化，可由客户端缓存
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=3600");
+        String etag = "\"" + job.getId() + "\"";
+        if (FileUtil.sendfileSupported(request)) {
+            FileUtil.download(request, response, file, job.getFileName(), job.getContentType(), etag);
+            return null;
+        }
+        return AbortableTask.of(downloadTimeout, fileDownloadExecutor, response, res -> {
+            FileUtil.download(request, res, file, job.getFileName(), job.getContentType(), etag);
+        });
+    }
+}
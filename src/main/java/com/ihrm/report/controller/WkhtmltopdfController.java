@@ -1,32 +1,134 @@
 package com.ihrm.report.controller;
 
+import com.ihrm.report.excelModel.enums.ContentType;
 import com.ihrm.report.service.HtmlToPdfService;
+import com.ihrm.report.function.AbortableTask;
 import com.ihrm.report.function.FileUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 public class WkhtmltopdfController {
 
     @Autowired
     private HtmlToPdfService htmlToPdfService;
+    @Autowired
+    private AsyncTaskExecutor pdfDownloadExecutor;
+
+    /**
+     * 异步请求超时时间（毫秒）
+     */
+    @Value("${asyncConfig.timeout.downloadPdf}")
+    private long downloadPdfTimeout;
+    @Value("${asyncConfig.timeout.streamPdf}")
+    private long streamPdfTimeout;
+    @Value("${asyncConfig.timeout.mergePdf}")
+    private long mergePdfTimeout;
 
     /**
      * 导出PDF，将文件放入流内
+     * 页面数据不变时使用缓存的 pdf，并通过 ETag 支持 If-None-Match 条件请求，支持 Range 断点续传
+     * <pre>
+     * 渲染页面和查询缓存在请求线程执行：未变化时直接返回 304；
+     * 命中缓存且容器支持 sendfile 时同步返回，由容器零拷贝发送（Tomcat 异步请求不支持 sendfile）；
+     * 其余情况转入异步线程转换或复制
+     * </pre>
      *
      * @param reportCoded
      */
     @GetMapping(value = "downloadPDF/{reportCoded}")
-    public void downloadPDF(HttpServletResponse response, @PathVariable String reportCoded) {
-        String fileDir = htmlToPdfService.convert("/reportor/interfaceView/" + reportCoded, reportCoded);
-        if(Objects.nonNull(fileDir)){
-            FileUtil.downloadPdf(response,fileDir);
+    public WebAsyncTask<Void> downloadPDF(HttpServletRequest request, HttpServletResponse response, @PathVariable String reportCoded) throws IOException {
+        HtmlToPdfService.Rendered rendered = htmlToPdfService.render(reportCoded);
+        String etag = rendered.getEtag();
+        String fileName = reportCoded + ContentType.pdf.comment;
+        if (Objects.nonNull(etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            // 页面数据未变化时不转换，直接返回 304
+            if (FileUtil.notModified(request, etag, -1)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return null;
+            }
         }
+        if (FileUtil.sendfileSupported(request)) {
+            Optional<HtmlToPdfService.Artifact> cached = htmlToPdfService.cached(rendered);
+            if (cached.isPresent()) {
+                // 缓存文件释放后延迟删除，容器在方法返回后打开文件发送
+                try (HtmlToPdfService.Artifact artifact = cached.get()) {
+                    FileUtil.download(request, response, artifact.cachedFile().orElseThrow(IllegalStateException::new), fileName, ContentType.pdf.type, etag);
+                }
+                return null;
+            }
+        }
+        return AbortableTask.of(downloadPdfTimeout, pdfDownloadExecutor, response, res -> {
+            //同一报表同时下载时共享一次转换，最后一个下载完成后删除文件
+            try (HtmlToPdfService.Artifact artifact = htmlToPdfService.share(rendered)) {
+                // 本次转换的文件关闭后立即删除，不能交给容器 sendfile，从已打开的文件复制
+                FileUtil.download(request, res, artifact.channel(), fileName, ContentType.pdf.type, etag);
+            }
+        });
+    }
+
+    /**
+     * 导出PDF，wkhtmltopdf 的输出直接写入响应流，不生成临时文件
+     *
+     * @param reportCoded
+     */
+    @GetMapping(value = "streamPDF/{reportCoded}")
+    public WebAsyncTask<Void> streamPDF(HttpServletResponse response, @PathVariable String reportCoded) {
+        return AbortableTask.of(streamPdfTimeout, pdfDownloadExecutor, response, res -> {
+            String encoded = URLEncoder.encode(reportCoded + ContentType.pdf.comment, "UTF-8").replace("+", "%20");
+            res.setContentType(ContentType.pdf.type);
+            res.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encoded + "\"; filename*=UTF-8''" + encoded);
+            ServletOutputStream sosRef = res.getOutputStream();
+            try {
+                htmlToPdfService.convertView(reportCoded, sosRef);
+            } finally {
+                sosRef.flush();
+                sosRef.close();
+            }
+        });
+    }
 
+    /**
+     * 多个报表合并导出为一个PDF，只启动一次 wkhtmltopdf
+     *
+     * @param reportCoded 报表编码，按顺序合并，如：mergePDF?reportCoded=a,b,c
+     */
+    @GetMapping(value = "mergePDF")
+    public WebAsyncTask<Void> mergePDF(HttpServletResponse response, @RequestParam List<String> reportCoded) {
+        if (reportCoded.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "报表编码不能为空");
+        }
+        return AbortableTask.of(mergePdfTimeout, pdfDownloadExecutor, response, res -> {
+            String encoded = URLEncoder.encode(reportCoded.get(0) + (reportCoded.size() > 1 ? "等" + reportCoded.size() + "份" : "") + ContentType.pdf.comment, "UTF-8").replace("+", "%20");
+            res.setContentType(ContentType.pdf.type);
+            res.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + encoded + "\"; filename*=UTF-8''" + encoded);
+            ServletOutputStream sosRef = res.getOutputStream();
+            try {
+                htmlToPdfService.convertViews(reportCoded, sosRef);
+            } finally {
+                sosRef.flush();
+                sosRef.close();
+            }
+        });
     }
 }
@@ -0,0 +1,84 @@
+package com.ihrm.report.datasource;
+
+import com.ihrm.report.excelModel.util.Dates;
+import com.ihrm.report.excelModel.util.Num;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 按 Jasper 字段声明的类型转换单元格数据
+ */
+final class FieldValues {
+    private FieldValues() {
+    }
+
+    /**
+     * 转换字段值
+     *
+     * @param type   字段声明类型 {@link net.sf.jasperreports.engine.JRField#getValueClass()}
+     * @param text   单元格文本
+     * @param number 单元格数值
+     * @param date   单元格日期
+     * @param raw    单元格原始值，字段类型为 Object 等无法识别的类型时使用
+     * @return Object
+     */
+    static Object convert(final Class<?> type,
+                          final Supplier<String> text,
+                          final Supplier<Num> number,
+                          final Supplier<Dates> date,
+                          final Supplier<Object> raw) {
+        if (String.class.equals(type)) {
+            return text.get();
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            final Num num = number.get();
+            return Objects.isNull(num) || num.isNull() ? null : number(type, num);
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            final Dates dates = date.get();
+            if (Objects.isNull(dates)) {
+                return null;
+            }
+            if (Timestamp.class.equals(type)) {
+                return dates.timestamp();
+            }
+            if (java.sql.Date.class.equals(type)) {
+                return new java.sql.Date(dates.getTimeMillis());
+            }
+            return dates.date();
+        }
+        if (Boolean.class.equals(type)) {
+            final Object value = raw.get();
+            return Objects.isNull(value) || value instanceof Boolean ? value : Boolean.valueOf(value.toString());
+        }
+        return raw.get();
+    }
+
+    private static Object number(final Class<?> type, final Num num) {
+        if (Integer.class.equals(type)) {
+            return num.toInteger();
+        }
+        if (Long.class.equals(type)) {
+            return num.toLong();
+        }
+        if (Double.class.equals(type)) {
+            return num.toDouble();
+        }
+        if (Float.class.equals(type)) {
+            return num.toFloat();
+        }
+        if (Short.class.equals(type)) {
+            return num.toShort();
+        }
+        if (BigInteger.class.equals(type)) {
+            return BigInteger.valueOf(num.longValue());
+        }
+        // BigDecimal、Number
+        return BigDecimal.valueOf(num.doubleValue());
+    }
+}
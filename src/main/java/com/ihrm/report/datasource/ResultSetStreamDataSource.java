@@ -0,0 +1,84 @@
+package com.ihrm.report.datasource;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRResultSetDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * 流式 JDBC 数据源：只读、只向前的游标 + fetchSize，fillReport 边读边填充，结果集不会整体加载到内存
+ * <pre>
+ * MySQL 驱动只有 fetchSize = Integer.MIN_VALUE 时才按行流式返回，其它数据库（如 H2）使用正数 fetchSize
+ * 数据库连接由调用方管理，{@link #close()} 只关闭结果集和语句
+ * </pre>
+ */
+public class ResultSetStreamDataSource implements JRDataSource, AutoCloseable {
+    /**
+     * 默认每次从数据库拉取的行数
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final JRResultSetDataSource delegate;
+
+    private ResultSetStreamDataSource(final PreparedStatement statement, final ResultSet resultSet) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.delegate = new JRResultSetDataSource(resultSet);
+    }
+
+    /**
+     * 执行查询并返回流式数据源
+     *
+     * @param connection {@link Connection} 数据库连接
+     * @param sql        查询语句，参数使用 ? 占位
+     * @param params     查询参数
+     * @return {@link ResultSetStreamDataSource}
+     */
+    public static ResultSetStreamDataSource of(final Connection connection, final String sql, final Object... params) throws SQLException {
+        Objects.requireNonNull(connection, "参数【connection】是必须的");
+        Objects.requireNonNull(sql, "参数【sql】是必须的");
+        final PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize(connection));
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            return new ResultSetStreamDataSource(statement, statement.executeQuery());
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    private static int fetchSize(final Connection connection) throws SQLException {
+        final String product = connection.getMetaData().getDatabaseProductName();
+        return Objects.nonNull(product) && product.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+    }
+
+    @Override
+    public boolean next() throws JRException {
+        return delegate.next();
+    }
+
+    @Override
+    public Object getFieldValue(final JRField field) throws JRException {
+        return delegate.getFieldValue(field);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            resultSet.close();
+        } finally {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ihrm.report.datasource;
+
+import com.ihrm.report.excelModel.excel.ISheetReader;
+import com.ihrm.report.excelModel.excel.entity.Position;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRField;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 以 {@link ISheetReader} 游标作为 Jasper 数据源，fillReport 每次 next() 时才读取下一行，不需要提前把全部数据收集到集合中
+ * <pre>
+ * 字段与列的对应关系：
+ * 1. 字段名与表头文本一致，见 {@link #ofHeader(ISheetReader)}
+ * 2. 字段描述（description）填写列名，如：A、B、AA
+ * </pre>
+ */
+public class SheetReaderDataSource implements JRDataSource {
+
+    private final ISheetReader<?> reader;
+    /**
+     * 字段名 => 列索引
+     */
+    private final Map<String, Integer> columns;
+
+    /**
+     * @param reader  已定位到数据起始行前一行的读取器，如：读取表头之后的读取器
+     * @param columns {@link Map}{@link Map<String:字段名, Integer:列索引>}
+     */
+    public SheetReaderDataSource(final ISheetReader<?> reader, final Map<String, Integer> columns) {
+        this.reader = Objects.requireNonNull(reader, "参数【reader】是必须的");
+        this.columns = new HashMap<>(Objects.requireNonNull(columns, "参数【columns】是必须的"));
+    }
+
+    /**
+     * 使用读取器当前行作为表头，表头文本作为字段名，之后的行作为数据行
+     *
+     * @param reader 已定位到表头行的读取器，如：reader.sheet(0).row(Rownum.of(1))
+     * @return {@link SheetReaderDataSource}
+     */
+    public static SheetReaderDataSource ofHeader(final ISheetReader<?> reader) {
+        return new SheetReaderDataSource(reader, reader.mapHeaders());
+    }
+
+    @Override
+    public boolean next() {
+        return reader.hasNext();
+    }
+
+    @Override
+    public Object getFieldValue(final JRField field) {
+        final Integer index = columnIndex(field);
+        if (Objects.isNull(index)) {
+            return null;
+        }
+        reader.cell(index);
+        return FieldValues.convert(field.getValueClass(),
+                reader::stringValue,
+                reader::numberValue,
+                reader::dateValue,
+                () -> reader.value().orElse(null)
+        );
+    }
+
+    private Integer columnIndex(final JRField field) {
+        final Integer index = columns.get(field.getName());
+        if (Objects.nonNull(index)) {
+            return index;
+        }
+        if (Objects.nonNull(field.getDescription()) && field.getDescription().matches("[A-Z]+")) {
+            final int columnIndex = Position.ofColumn(field.getDescription()).columnIndex();
+            columns.put(field.getName(), columnIndex);
+            return columnIndex;
+        }
+        return null;
+    }
+}
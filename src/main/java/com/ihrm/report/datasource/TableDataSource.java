@@ -0,0 +1,62 @@
+package com.ihrm.report.datasource;
+
+import com.ihrm.report.excelModel.excel.entity.Cell;
+import com.ihrm.report.excelModel.excel.entity.Row;
+import com.ihrm.report.excelModel.excel.entity.Table;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRField;
+
+import java.util.*;
+
+/**
+ * 以 {@link Table} 表头 + 数据行迭代器作为 Jasper 数据源；字段名对应表头的 alias，没有 alias 时对应 label
+ */
+public class TableDataSource implements JRDataSource {
+
+    private final Iterator<Row> body;
+    /**
+     * 字段名 => 列索引
+     */
+    private final Map<String, Integer> columns = new HashMap<>();
+    private Row row;
+
+    /**
+     * @param header {@link List}{@link List<Cell>} 表头
+     * @param body   {@link Iterator}{@link Iterator<Row>} 数据行迭代器，可以是边读边生成的迭代器
+     */
+    public TableDataSource(final List<Cell> header, final Iterator<Row> body) {
+        Objects.requireNonNull(header, "参数【header】是必须的");
+        this.body = Objects.requireNonNull(body, "参数【body】是必须的");
+        header.forEach(cell -> columns.put(Optional.ofNullable(cell.getAlias()).orElseGet(cell::getLabel), cell.index()));
+    }
+
+    public static TableDataSource of(final Table table) {
+        Objects.requireNonNull(table, "参数【table】是必须的");
+        return new TableDataSource(table.getHeader(), Optional.ofNullable(table.getBody()).orElse(Collections.emptyList()).iterator());
+    }
+
+    @Override
+    public boolean next() {
+        if (body.hasNext()) {
+            row = body.next();
+            return true;
+        }
+        row = null;
+        return false;
+    }
+
+    @Override
+    public Object getFieldValue(final JRField field) {
+        final Integer index = columns.get(field.getName());
+        final Cell cell = Objects.isNull(index) || Objects.isNull(row) ? null : row.getCell(index);
+        if (Objects.isNull(cell)) {
+            return null;
+        }
+        return FieldValues.convert(field.getValueClass(),
+                () -> Optional.ofNullable(cell.getText()).orElseGet(() -> Objects.toString(cell.getValue(), null)),
+                () -> Objects.isNull(cell.getValue()) ? null : cell.number(),
+                cell::date,
+                () -> Optional.ofNullable(cell.getValue()).orElseGet(cell::getText)
+        );
+    }
+}
@@ -0,0 +1,162 @@
+package com.ihrm.report.enums;
+
+import com.ihrm.report.excelModel.enums.ContentType;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.export.JRCsvExporter;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRDocxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.export.*;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Jasper 报表导出格式，导出结果直接写入输出流，不在内存中缓冲完整文件
+ */
+public enum ReportFormat {
+    PDF(ContentType.pdf, true) {
+        @Override
+        public void export(JasperPrint print, OutputStream os) throws JRException {
+            JRPdfExporter exporter = new JRPdfExporter();
+            exporter.setExporterInput(new SimpleExporterInput(print));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(os));
+            exporter.exportReport();
+        }
+    },
+    XLSX(ContentType.xlsx, false) {
+        @Override
+        public void export(JasperPrint print, OutputStream os) throws JRException {
+            SimpleXlsxReportConfiguration configuration = new SimpleXlsxReportConfiguration();
+            configuration.setDetectCellType(true);
+            configuration.setRemoveEmptySpaceBetweenRows(true);
+            JRXlsxExporter exporter = new JRXlsxExporter();
+            exporter.setExporterInput(new SimpleExporterInput(print));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(os));
+            exporter.setConfiguration(configuration);
+            exporter.exportReport();
+        }
+    },
+    CSV(ContentType.csv, false) {
+        @Override
+        public void export(JasperPrint print, OutputStream os) throws JRException {
+            JRCsvExporter exporter = new JRCsvExporter();
+            exporter.setExporterInput(new SimpleExporterInput(print));
+            exporter.setExporterOutput(new SimpleWriterExporterOutput(os, ENCODING));
+            exporter.exportReport();
+        }
+    },
+    HTML(ContentType.html, true) {
+        @Override
+        public void export(JasperPrint print, OutputStream os) throws JRException {
+            HtmlExporter exporter = new HtmlExporter();
+            exporter.setExporterInput(new SimpleExporterInput(print));
+            exporter.setExporterOutput(new SimpleHtmlExporterOutput(os, ENCODING));
+            exporter.setConfiguration(new SimpleHtmlReportConfiguration() {
+                @Override
+                public Boolean isEmbedImage() {
+                    // 图片以 data uri 内嵌，不需要额外的图片请求
+                    return true;
+                }
+            });
+            exporter.exportReport();
+        }
+    },
+    DOCX(ContentType.docx, false) {
+        @Override
+        public void export(JasperPrint print, OutputStream os) throws JRException {
+            JRDocxExporter exporter = new JRDocxExporter();
+            exporter.setExporterInput(new SimpleExporterInput(print));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(os));
+            exporter.exportReport();
+        }
+    },
+    ;
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * 响应类型
+     */
+    public final ContentType contentType;
+    /**
+     * 是否在浏览器内直接打开，否则作为附件下载
+     */
+    public final boolean inline;
+
+    ReportFormat(ContentType contentType, boolean inline) {
+        this.contentType = contentType;
+        this.inline = inline;
+    }
+
+    /**
+     * 导出报表，写入输出流
+     *
+     * @param print {@link JasperPrint} 已填充的报表
+     * @param os    {@link OutputStream} 输出流，不会关闭
+     */
+    public abstract void export(JasperPrint print, OutputStream os) throws JRException;
+
+    /**
+     * 文件后缀，如：.pdf
+     */
+    public String extension() {
+        return contentType.comment;
+    }
+
+    /**
+     * 响应 Content-Type
+     */
+    public String mediaType() {
+        return contentType == ContentType.csv || contentType == ContentType.html ? contentType.utf8() : contentType.type;
+    }
+
+    /**
+     * 按后缀或名称查找，如：pdf、.pdf、PDF
+     */
+    public static Optional<ReportFormat> of(String format) {
+        if (!StringUtils.hasText(format)) {
+            return Optional.empty();
+        }
+        String name = format.trim().replaceFirst("^\\.", "").toUpperCase();
+        for (ReportFormat value : values()) {
+            if (value.name().equals(name)) {
+                return Optional.of(value);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 协商导出格式：优先使用指定的格式，其次按 Accept 请求头的质量因子排序匹配，都没有时默认 PDF
+     *
+     * @param format 路径或参数中指定的格式
+     * @param accept Accept 请求头
+     * @return {@link ReportFormat}
+     */
+    public static ReportFormat negotiate(String format, String accept) {
+        if (StringUtils.hasText(format)) {
+            return of(format).orElseThrow(() -> new IllegalArgumentException("不支持的导出格式：" + format));
+        }
+        if (StringUtils.hasText(accept)) {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+            for (MediaType mediaType : mediaTypes) {
+                if (mediaType.isWildcardType()) {
+                    break;
+                }
+                for (ReportFormat value : values()) {
+                    if (Objects.equals(mediaType.getType() + "/" + mediaType.getSubtype(), value.contentType.type)) {
+                        return value;
+                    }
+                }
+            }
+        }
+        return PDF;
+    }
+}
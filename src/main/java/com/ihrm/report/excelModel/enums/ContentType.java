@@ -9,6 +9,11 @@ public enum ContentType {
     // 二进制流
     stream(".*（ 二进制流）", "application/octet-stream"),
     xlsx(".xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    docx(".docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+    pdf(".pdf", "application/pdf"),
+    csv(".csv", "text/csv"),
+    zip(".zip", "application/zip"),
+    png(".png", "image/png"),
     html(".html", "text/html"),
     json(".json", "application/json"),
     xml(".xml", "text/xml")
@@ -1,6 +1,5 @@
 package com.ihrm.report.excelModel.excel;
 
-import com.alibaba.fastjson.JSONObject;
 import com.ihrm.report.excelModel.excel.entity.Position;
 import com.ihrm.report.excelModel.exception.NotFoundException;
 import com.ihrm.report.excelModel.util.FPath;
@@ -10,15 +9,26 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
  * 【.xsl|.xslx】 文件读取
+ * 整个文件加载到内存，大文件只需逐行读取时使用 {@link ExcelStreamReader}
  *
  * @author 谢长春 on 2018-8-8 .
  */
@@ -30,14 +40,23 @@ public final class ExcelReader implements ISheetReader<ExcelReader> {
     }
 
     public static ExcelReader of(final String path, String... names) {
-        return of(FPath.of(path, names).file(), true);
+        return of(FPath.of(path, names).file(), false);
     }
 
     public static ExcelReader of(final File file) {
         Objects.requireNonNull(file, "参数【file】是必须的");
-        return of(file, true);
+        return of(file, false);
     }
 
+    /**
+     * 读取文件
+     *
+     * @param file     {@link File}
+     * @param readOnly boolean true：以只读方式直接打开文件，不把整个文件缓冲到内存，文件在 {@link #close()} 时释放，只用于读取：
+     *                 .xlsx 不能保存（{@link #saveWorkBook(FPath)} 抛出异常），.xls 不能保存到原文件；
+     *                 false：先把文件读入内存再解析，不占用文件，可以修改后保存到任意文件（{@link #of(File)} 的默认方式）
+     * @return {@link ExcelReader}
+     */
     @SneakyThrows
     public static ExcelReader of(final File file, final boolean readOnly) {
         Objects.requireNonNull(file, "参数【file】是必须的");
@@ -45,17 +64,31 @@ public final class ExcelReader implements ISheetReader<ExcelReader> {
             throw new NotFoundException("文件不存在：".concat(file.getAbsolutePath()));
         }
 
-//        if (file.getName().endsWith(".xls")) {
-//            return new ExcelReader(new HSSFWorkbook(new POIFSFileSystem(file, readOnly)));
-//        } else if (file.getName().endsWith(".xlsx")) {
-//            @Cleanup final OPCPackage pkg = OPCPackage.open(file, readOnly ? PackageAccess.READ : PackageAccess.READ_WRITE);
-//            return new ExcelReader(new XSSFWorkbook(pkg));
-        if (file.getName().endsWith(".xlsx") || file.getName().endsWith(".xls")) {
-            // 用 new FileInputStream(file) 初始化可以防止篡改模板
-            return new ExcelReader(WorkbookFactory.create(new FileInputStream(file)));
-        } else {
+        if (!file.getName().endsWith(".xlsx") && !file.getName().endsWith(".xls")) {
             throw new IllegalArgumentException("未知的文件后缀");
         }
+        if (readOnly) {
+            // 只读时直接以文件打开，按需随机读取，不需要先把整个文件复制到内存；关闭 reader 时一起关闭
+            if (Objects.equals(FileMagic.OLE2, FileMagic.valueOf(file))) {
+                final POIFSFileSystem fs = new POIFSFileSystem(file, true);
+                try {
+                    return new ExcelReader(new HSSFWorkbook(fs));
+                } catch (Exception e) {
+                    fs.close();
+                    throw e;
+                }
+            }
+            final OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+            try {
+                return new ExcelReader(new XSSFWorkbook(pkg));
+            } catch (Exception e) {
+                pkg.revert();
+                throw e;
+            }
+        }
+        // 用 new FileInputStream(file) 初始化可以防止篡改模板
+        @Cleanup final FileInputStream inputStream = new FileInputStream(file);
+        return new ExcelReader(WorkbookFactory.create(inputStream));
     }
 
     @SneakyThrows
@@ -167,65 +200,16 @@ public final class ExcelReader implements ISheetReader<ExcelReader> {
     }
 
     /**
-     * 获取当前行指定列数据
-     *
-     * @param headers {@link List}{@link List< com.ihrm.report.excelModel.excel.entity.Cell >} 来自 {@link ExcelReader#headers()}
-     * @return {@link com.ihrm.report.excelModel.excel.entity.Row}{@link com.ihrm.report.excelModel.excel.entity.Row<int:Header对象中的index字段值, String:单元格内容>}
-     */
-    public com.ihrm.report.excelModel.excel.entity.Row rowObject(final List<com.ihrm.report.excelModel.excel.entity.Cell> headers) {
-//        final LinkedHashMap<String, String> map = new LinkedHashMap<>();
-        final com.ihrm.report.excelModel.excel.entity.Row row = com.ihrm.report.excelModel.excel.entity.Row.build();
-        headers.forEach(header -> row.addCell(header.index(),
-                com.ihrm.report.excelModel.excel.entity.Cell.builder()
-                        .text(cell(header.index()).stringValue())
-//                        .type()
-//                        .value()
-//                        .formula()
-//                        .sindex()
-                        .build()
-        ));
-        return row;
-    }
-
-    /**
-     * 获取当前行指定列数据
-     *
-     * @param mapHeaders {@link Map}{@link Map<String:列头字段名, Integer:列索引>} 来自 {@link ExcelReader#mapHeaders()}
-     * @return {@link LinkedHashMap}{@link LinkedHashMap<String:Header对象中的label字段值, String:单元格内容>}
-     */
-    public LinkedHashMap<String, String> rowObject(final Map<String, Integer> mapHeaders) {
-        final LinkedHashMap<String, String> map = new LinkedHashMap<>();
-        mapHeaders.forEach((key, value) -> map.put(key, cell(value).stringValue()));
-        return map;
-    }
-
-    /**
-     * 获取当前行，整行数据
-     *
-     * @return {@link LinkedHashMap}{@link LinkedHashMap<Integer:列索引, String:单元格内容>}
+     * 关闭文件；只读打开的 .xlsx 放弃修改（revert），不尝试保存
      */
-    public LinkedHashMap<Integer, String> rowObject() {
-        final LinkedHashMap<Integer, String> map = new LinkedHashMap<>();
-        for (int i = 0; i < getRow().getLastCellNum(); i++) {
-            map.put(i, cell(i).stringValue());
+    @SneakyThrows
+    @Override
+    public void close() {
+        if (workbook instanceof XSSFWorkbook && Objects.equals(PackageAccess.READ, ((XSSFWorkbook) workbook).getPackage().getPackageAccess())) {
+            ((XSSFWorkbook) workbook).getPackage().revert();
+            return;
         }
-        return map;
-    }
-
-    /**
-     * 获取当前行指定列数据
-     *
-     * @param headers {@link List}{@link List<com.ihrm.report.excelModel.excel.entity.Cell >} 来自 {@link ExcelReader#headers()}
-     * @return {@link JSONObject}{@link JSONObject<int:Header对象中的alias或label, String:单元格内容>}
-     */
-    public JSONObject rowJSONObject(final List<com.ihrm.report.excelModel.excel.entity.Cell> headers) {
-//        final LinkedHashMap<String, String> map = new LinkedHashMap<>();
-        final JSONObject row = new JSONObject(true);
-        headers.forEach(header -> cell(header.index())
-                .value()
-                .ifPresent(value -> row.put(Optional.ofNullable(header.getAlias()).orElseGet(header::getLabel), value))
-        );
-        return row;
+        workbook.close();
     }
 
     public static void main(String[] args) {
@@ -301,5 +285,32 @@ public final class ExcelReader implements ISheetReader<ExcelReader> {
             read.accept(FPath.of("src/test/files/excelModel/联系人-111111.xls").file());
             read.accept(FPath.of("src/test/files/excelModel/联系人-111111.xlsx").file());
         }
+        {
+            // 大文件读取对比：readOnly=true 直接打开文件，readOnly=false 先缓冲到内存；建议 -Xmx2g 运行，文件 20MB ~ 100MB
+            final BiConsumer<File, Boolean> read = (file, readOnly) -> {
+                System.gc();
+                ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+                final long start = System.currentTimeMillis();
+                long rows = 0;
+                @Cleanup final ExcelReader reader = ExcelReader.of(file, readOnly).sheet(0);
+                do {
+                    reader.cell(0).stringOfEmpty();
+                    rows++;
+                } while (reader.hasNext());
+                final long peak = ManagementFactory.getMemoryPoolMXBeans().stream()
+                        .filter(pool -> Objects.equals(MemoryType.HEAP, pool.getType()))
+                        .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                        .sum();
+                System.out.println(String.format("%s readOnly=%s 文件：%dMB 行数：%d 耗时：%dms 堆内存峰值：%dMB",
+                        file.getName(), readOnly, file.length() >> 20, rows, System.currentTimeMillis() - start, peak >> 20));
+            };
+            for (String name : Arrays.asList("big.xls", "big.xlsx")) {
+                final File file = FPath.of("src/test/files/temp", name).file();
+                if (file.exists()) {
+                    read.accept(file, false);
+                    read.accept(file, true);
+                }
+            }
+        }
     }
 }
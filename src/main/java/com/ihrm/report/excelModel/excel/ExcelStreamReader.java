@@ -0,0 +1,343 @@
+package com.ihrm.report.excelModel.excel;
+
+import com.ihrm.report.excelModel.exception.NotFoundException;
+import com.ihrm.report.excelModel.util.FPath;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.SneakyThrows;
+import org.apache.poi.ss.usermodel.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 【.xls|.xlsx】 流式读取：逐行解析 sheet，内存占用与文件大小无关，只保留当前行和下一行
+ * 与 {@link ExcelReader} 使用方式相同：sheet(index) / next() / hasNext() / cell(index) / stringValue() / numberValue()
+ * <pre>
+ * &#64;Cleanup final ExcelStreamReader reader = ExcelStreamReader.of(file).sheet(0).skip(1);
+ * do {
+ *     reader.cell(0).stringOfEmpty();
+ * } while (reader.hasNext());
+ *
+ * 只能向后读取，定位到已读过的行时从 sheet 开头重新解析
+ * 不提供 {@link Workbook} 和 {@link Sheet} 对象，依赖它们的方法（批注、合并单元格、保存等）不可用
+ * </pre>
+ */
+public abstract class ExcelStreamReader implements ISheetReader<ExcelStreamReader> {
+    ExcelStreamReader() {
+        this.dataFormatter = new DataFormatter();
+    }
+
+    public static ExcelStreamReader of(final String path, String... names) {
+        return of(FPath.of(path, names).file());
+    }
+
+    public static ExcelStreamReader of(final File file) {
+        return of(file, null);
+    }
+
+    /**
+     * 读取加密文件
+     *
+     * @param file     {@link File}
+     * @param password {@link String} 打开密码，文件未加密时忽略
+     * @return {@link ExcelStreamReader}
+     */
+    @SneakyThrows
+    public static ExcelStreamReader of(final File file, final String password) {
+        Objects.requireNonNull(file, "参数【file】是必须的");
+        if (!file.exists()) {
+            throw new NotFoundException("文件不存在：".concat(file.getAbsolutePath()));
+        }
+        if (file.getName().endsWith(".xlsx")) {
+            return XSSFStreamReader.create(file, password);
+        } else if (file.getName().endsWith(".xls")) {
+            return new HSSFStreamReader(file, password);
+        } else {
+            throw new IllegalArgumentException("未知的文件后缀");
+        }
+    }
+
+    /**
+     * 逐行读取 sheet 的数据源
+     */
+    interface RowSource extends Closeable {
+        /**
+         * 读取下一行，跳过没有数据的行
+         *
+         * @return {@link StreamRow} 已读完返回 null
+         */
+        StreamRow read() throws IOException;
+
+        /**
+         * sheet 声明的最后一行索引，未声明时返回 -1
+         *
+         * @return int
+         */
+        int lastRowIndex();
+    }
+
+    /**
+     * 所有 sheet 名称，按顺序排列
+     *
+     * @return {@link List}{@link List<String>}
+     */
+    abstract List<String> sheetNames();
+
+    /**
+     * sheet 是否为隐藏状态
+     *
+     * @param index int sheet索引
+     * @return boolean true：隐藏
+     */
+    abstract boolean hidden(final int index);
+
+    /**
+     * 从头开始读取指定 sheet
+     *
+     * @param index int sheet索引
+     * @return {@link RowSource}
+     */
+    abstract RowSource open(final int index) throws IOException;
+
+    /**
+     * 释放文件
+     */
+    abstract void release() throws IOException;
+
+    /**
+     * 当前操作sheet索引
+     */
+    private int sheetIndex = -1;
+    private RowSource source;
+    /**
+     * 预读的行：行索引不小于 cursor 的第一行，null 表示已读完
+     */
+    private StreamRow pending;
+    /**
+     * 行索引小于 cursor 的行已经丢弃
+     */
+    private int cursor;
+    /**
+     * 当前操作行索引
+     */
+    @Getter
+    private int rowIndex;
+    /**
+     * 当前操作行
+     */
+    @Getter
+    private Row row;
+    /**
+     * 当前操作单元格
+     */
+    @Getter
+    @Setter
+    private Cell cell;
+    private DataFormatter dataFormatter;
+
+    @Override
+    public DataFormatter getDataFormatter() {
+        return dataFormatter;
+    }
+
+    /**
+     * 按索引选择读取sheet
+     *
+     * @param index int sheet索引
+     * @return {@link ExcelStreamReader}
+     */
+    @SneakyThrows
+    public ExcelStreamReader sheet(final int index) {
+        if (index < 0 || index >= sheetNames().size()) {
+            throw new NotFoundException(String.format("sheet 不存在：%d", index));
+        }
+        closeSource();
+        sheetIndex = index;
+        source = open(index);
+        pending = source.read();
+        cursor = 0;
+        cell = null;
+        row = null;
+        rowIndex = 0;
+        return this;
+    }
+
+    /**
+     * 按名称选择读取sheet
+     *
+     * @param name String sheet名称
+     * @return {@link ExcelStreamReader}
+     */
+    public ExcelStreamReader sheet(final String name) {
+        final int index = sheetNames().indexOf(name);
+        if (index < 0) {
+            throw new NotFoundException("sheet 不存在：".concat(name));
+        }
+        return sheet(index);
+    }
+
+    /**
+     * 丢弃行索引小于 index 的行；index 已经读过时从 sheet 开头重新解析
+     */
+    @SneakyThrows
+    private void seek(final int index) {
+        if (Objects.isNull(source)) {
+            throw new IllegalStateException("请先调用 sheet() 选择读取的 sheet");
+        }
+        if (index < cursor) {
+            source.close();
+            source = open(sheetIndex);
+            pending = source.read();
+        }
+        while (Objects.nonNull(pending) && pending.getRowNum() < index) {
+            pending = source.read();
+        }
+        cursor = index;
+    }
+
+    @Override
+    public Workbook getWorkbook() {
+        throw new UnsupportedOperationException("流式读取不提供 Workbook 对象");
+    }
+
+    @Override
+    public Sheet getSheet() {
+        throw new UnsupportedOperationException("流式读取不提供 Sheet 对象");
+    }
+
+    @Override
+    public Optional<ExcelStreamReader> hasSheet() {
+        return sheetIndex < 0 ? Optional.empty() : Optional.of(this);
+    }
+
+    @Override
+    public ExcelStreamReader hasSheet(final Supplier<? extends RuntimeException> ex) {
+        if (sheetIndex < 0 && Objects.nonNull(ex)) {
+            throw ex.get();
+        }
+        return this;
+    }
+
+    @Override
+    public ExcelStreamReader hasSheet(final Consumer<ExcelStreamReader> hasFalse, final Consumer<ExcelStreamReader> hasTrue) {
+        final Consumer<ExcelStreamReader> consumer = sheetIndex < 0 ? hasFalse : hasTrue;
+        if (Objects.nonNull(consumer)) {
+            consumer.accept(this);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isHiddenSheet() {
+        if (sheetIndex < 0) {
+            throw new IllegalStateException("请先调用 sheet() 选择读取的 sheet");
+        }
+        return hidden(sheetIndex);
+    }
+
+    /**
+     * 流式读取不解析批注，需要读取批注时使用 {@link ExcelReader}
+     *
+     * @throws UnsupportedOperationException 总是抛出
+     */
+    @Override
+    public Map<String, String> comments() {
+        throw new UnsupportedOperationException("流式读取不支持读取批注，请使用 ExcelReader");
+    }
+
+    @Override
+    public boolean hasEnd() {
+        seek(rowIndex);
+        return Objects.isNull(pending);
+    }
+
+    /**
+     * 获取 sheet 声明的最后一行索引，未声明时返回 -1；流式读取以 {@link #hasEnd()} 为准
+     *
+     * @return int
+     */
+    @Override
+    public int getLastRowIndex() {
+        return Objects.isNull(source) ? -1 : source.lastRowIndex();
+    }
+
+    @Override
+    public ExcelStreamReader next() {
+        setRowIndex(rowIndex + 1);
+        if (hasEnd()) {
+            return null;
+        }
+        // 跳过没有数据的行
+        return row(pending);
+    }
+
+    @Override
+    public ExcelStreamReader setRowIndex(final int rowIndex) {
+        this.rowIndex = rowIndex;
+        return this;
+    }
+
+    @Override
+    public ExcelStreamReader row(final int rowIndex) {
+        setRowIndex(rowIndex);
+        seek(rowIndex);
+        return row(Objects.nonNull(pending) && pending.getRowNum() == rowIndex ? pending : null);
+    }
+
+    @Override
+    public ExcelStreamReader row(final Row row) {
+        if (Objects.nonNull(row)) {
+            rowIndex = row.getRowNum();
+        }
+        this.row = row;
+        this.cell = null;
+        return this;
+    }
+
+    @Override
+    public ExcelStreamReader cell(final Cell cell) {
+        this.cell = cell;
+        return this;
+    }
+
+    @Override
+    public int sheetCount() {
+        return sheetNames().size();
+    }
+
+    @Override
+    public int sheetIndex() {
+        return sheetIndex;
+    }
+
+    @Override
+    public String sheetName() {
+        return sheetIndex < 0 ? null : sheetNames().get(sheetIndex);
+    }
+
+    private void closeSource() throws IOException {
+        if (Objects.nonNull(source)) {
+            source.close();
+            source = null;
+            pending = null;
+        }
+    }
+
+    /**
+     * 关闭文件
+     */
+    @SneakyThrows
+    @Override
+    public void close() {
+        try {
+            closeSource();
+        } finally {
+            release();
+        }
+    }
+}
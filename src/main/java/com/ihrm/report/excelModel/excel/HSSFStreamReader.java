@@ -0,0 +1,390 @@
+package com.ihrm.report.excelModel.excel;
+
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.record.crypto.Biff8EncryptionKey;
+import org.apache.poi.hssf.usermodel.HSSFRichTextString;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * 【.xls】 流式读取：以只读方式打开 OLE2 文件，逐条读取 BIFF 记录，
+ * 经 {@link MissingRecordAwareHSSFListener} 标记行结束、{@link FormatTrackingHSSFListener} 跟踪数字格式后组装成行
+ * <pre>
+ * 常驻内存的只有共享字符串表和格式表
+ * 加密文件使用密码解密，解密在读取记录时逐块进行
+ * 数字格式按格式字符串映射到内部工作簿的样式，sindex() 不是文件中的样式索引
+ * </pre>
+ */
+final class HSSFStreamReader extends ExcelStreamReader {
+
+    HSSFStreamReader(final File file, final String password) throws IOException {
+        this.fs = new POIFSFileSystem(file, true);
+        this.password = password;
+        try {
+            final List<BoundSheetRecord> sheets = new ArrayList<>();
+            boolean date1904 = false;
+            try (Records records = new Records()) {
+                Record record;
+                // 只读取工作簿全局记录，遇到第一个 sheet 时结束
+                while (Objects.nonNull(record = records.next()) && records.sheets == 0) {
+                    if (record instanceof BoundSheetRecord) {
+                        sheets.add((BoundSheetRecord) record);
+                    } else if (record instanceof DateWindow1904Record) {
+                        date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+                    }
+                }
+            }
+            // sheet 记录在文件中的顺序与 sheet 顺序可能不同
+            final List<BoundSheetRecord> ordered = Arrays.asList(BoundSheetRecord.orderByBofPosition(sheets));
+            for (BoundSheetRecord sheet : sheets) {
+                names.add(sheet.getSheetname());
+                hidden.add(sheet.isHidden() || sheet.isVeryHidden());
+                positions.add(ordered.indexOf(sheet));
+            }
+            this.book = new StreamRow.Book(date1904, styles.getCellStyleAt(0), HSSFRichTextString::new);
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    private final POIFSFileSystem fs;
+    private final String password;
+    private final StreamRow.Book book;
+    private final List<String> names = new ArrayList<>();
+    private final List<Boolean> hidden = new ArrayList<>();
+    /**
+     * sheet 索引 => sheet 记录在文件中的顺序
+     */
+    private final List<Integer> positions = new ArrayList<>();
+    /**
+     * 按数字格式创建样式的内部工作簿
+     */
+    private final HSSFWorkbook styles = new HSSFWorkbook();
+    private final Map<String, CellStyle> styleCache = new HashMap<>();
+
+    private CellStyle style(final String format) {
+        return styleCache.computeIfAbsent(format, key -> {
+            final CellStyle style = styles.createCellStyle();
+            style.setDataFormat(styles.createDataFormat().getFormat(key));
+            return style;
+        });
+    }
+
+    @Override
+    List<String> sheetNames() {
+        return names;
+    }
+
+    @Override
+    boolean hidden(final int index) {
+        return hidden.get(index);
+    }
+
+    @Override
+    RowSource open(final int index) throws IOException {
+        return new SheetSource(positions.get(index));
+    }
+
+    @Override
+    void release() throws IOException {
+        try {
+            fs.close();
+        } finally {
+            styles.close();
+        }
+    }
+
+    /**
+     * 从头读取 Workbook 流中的记录，并记录所在层级：1 为工作簿全局或 sheet，大于 1 为 sheet 中嵌入的图表等
+     */
+    private final class Records implements AutoCloseable {
+        private Records() throws IOException {
+            final DirectoryNode root = fs.getRoot();
+            this.is = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root));
+            final String previous = Biff8EncryptionKey.getCurrentUserPassword();
+            Biff8EncryptionKey.setCurrentUserPassword(password);
+            try {
+                this.factory = new RecordFactoryInputStream(is, false);
+            } catch (RuntimeException e) {
+                is.close();
+                throw e;
+            } finally {
+                Biff8EncryptionKey.setCurrentUserPassword(previous);
+            }
+        }
+
+        private final InputStream is;
+        private final RecordFactoryInputStream factory;
+        private int depth;
+        /**
+         * 当前记录所在层级，BOF/EOF 与其包围的记录同级
+         */
+        private int level;
+        /**
+         * 已开始的 sheet 数
+         */
+        private int sheets;
+
+        private Record next() {
+            final Record record = factory.nextRecord();
+            if (record instanceof BOFRecord) {
+                level = ++depth;
+                if (depth == 1 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK) {
+                    sheets++;
+                }
+            } else if (record instanceof EOFRecord) {
+                level = depth--;
+            } else {
+                level = depth;
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            is.close();
+        }
+    }
+
+    /**
+     * 读取一个 sheet：工作簿全局记录和目标 sheet 的记录交给监听器处理，其余 sheet 及嵌入对象跳过
+     */
+    private final class SheetSource implements RowSource, HSSFListener {
+        private SheetSource(final int position) throws IOException {
+            this.position = position;
+            this.records = new Records();
+            this.collector = new EventWorkbookBuilder.SheetRecordCollectingListener(
+                    this.formats = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(this))
+            );
+        }
+
+        private final int position;
+        private final Records records;
+        private final EventWorkbookBuilder.SheetRecordCollectingListener collector;
+        private final FormatTrackingHSSFListener formats;
+        private boolean done;
+        private int lastRowIndex = -1;
+        /**
+         * 已完成的行
+         */
+        private final Deque<StreamRow> ready = new ArrayDeque<>();
+        /**
+         * 正在组装的行
+         */
+        private StreamRow current;
+        /**
+         * 有 RowRecord 的行，没有单元格时也是一行
+         */
+        private final TreeMap<Integer, RowRecord> rowRecords = new TreeMap<>();
+        private int previousRowNum = -1;
+        /**
+         * 等待 SharedFormulaRecord、StringRecord 的公式单元格
+         */
+        private FormulaRecord formula;
+        private String formulaString;
+        private final List<SharedFormulaRecord> sharedFormulas = new ArrayList<>();
+
+        @Override
+        public int lastRowIndex() {
+            return lastRowIndex;
+        }
+
+        @Override
+        public StreamRow read() {
+            while (ready.isEmpty() && !done) {
+                final Record record = records.next();
+                if (Objects.isNull(record)) {
+                    finish();
+                    break;
+                }
+                if (records.sheets == 0) {
+                    // 工作簿全局记录：共享字符串表、格式、sheet 名称等
+                    collector.processRecord(record);
+                } else if (records.sheets - 1 == position) {
+                    if (records.level == 1) {
+                        collector.processRecord(record);
+                        if (record instanceof EOFRecord) {
+                            finish();
+                        }
+                    }
+                } else if (records.sheets - 1 > position) {
+                    finish();
+                }
+            }
+            return ready.poll();
+        }
+
+        @Override
+        public void processRecord(final Record record) {
+            if (Objects.nonNull(formula) && !(record instanceof SharedFormulaRecord) && !(record instanceof StringRecord)) {
+                addFormula();
+            }
+            if (record instanceof CellValueRecordInterface && !(record instanceof FormulaRecord)) {
+                cell((CellValueRecordInterface) record);
+            } else if (record instanceof FormulaRecord) {
+                formula = (FormulaRecord) record;
+                formulaString = null;
+            } else if (record instanceof SharedFormulaRecord) {
+                sharedFormulas.add((SharedFormulaRecord) record);
+            } else if (record instanceof StringRecord) {
+                formulaString = ((StringRecord) record).getString();
+            } else if (record instanceof LastCellOfRowDummyRecord) {
+                endRow(((LastCellOfRowDummyRecord) record).getRow());
+            } else if (record instanceof RowRecord) {
+                rowRecords.put(((RowRecord) record).getRowNumber(), (RowRecord) record);
+            } else if (record instanceof DimensionsRecord) {
+                lastRowIndex = ((DimensionsRecord) record).getLastRow() - 1;
+            }
+        }
+
+        private StreamRow row(final int rowNum) {
+            if (Objects.isNull(current) || current.getRowNum() != rowNum) {
+                if (Objects.nonNull(current)) {
+                    endRow(current.getRowNum());
+                }
+                emptyRows(rowNum);
+                current = new StreamRow(rowNum, book);
+                final RowRecord record = rowRecords.remove(rowNum);
+                if (Objects.nonNull(record)) {
+                    current.setHeightValue(record.getHeight());
+                    current.setZeroHeightValue(record.getZeroHeight());
+                }
+            }
+            return current;
+        }
+
+        /**
+         * 行结束：没有单元格但有 RowRecord 的行也作为一行
+         */
+        private void endRow(final int rowNum) {
+            if (Objects.isNull(current) && rowRecords.containsKey(rowNum)) {
+                row(rowNum);
+            }
+            if (Objects.nonNull(current) && current.getRowNum() == rowNum) {
+                ready.add(current);
+                previousRowNum = rowNum;
+                current = null;
+            }
+        }
+
+        /**
+         * 输出 rowNum 之前只有 RowRecord 没有单元格的行
+         */
+        private void emptyRows(final int rowNum) {
+            while (!rowRecords.isEmpty() && rowRecords.firstKey() < rowNum) {
+                final RowRecord record = rowRecords.pollFirstEntry().getValue();
+                if (record.getRowNumber() > previousRowNum) {
+                    final StreamRow row = new StreamRow(record.getRowNumber(), book);
+                    row.setHeightValue(record.getHeight());
+                    row.setZeroHeightValue(record.getZeroHeight());
+                    ready.add(row);
+                    previousRowNum = record.getRowNumber();
+                }
+            }
+        }
+
+        private void cell(final CellValueRecordInterface record) {
+            final StreamRow row = row(record.getRow());
+            final CellStyle style = style(formats.getFormatString(record));
+            final int column = record.getColumn();
+            if (record instanceof NumberRecord) {
+                row.add(new StreamCell(row, column, CellType.NUMERIC, CellType.NUMERIC, ((NumberRecord) record).getValue(), null, style));
+            } else if (record instanceof LabelSSTRecord) {
+                final String value = collector.getSSTRecord().getString(((LabelSSTRecord) record).getSSTIndex()).getString();
+                row.add(new StreamCell(row, column, CellType.STRING, CellType.STRING, value, null, style));
+            } else if (record instanceof LabelRecord) {
+                row.add(new StreamCell(row, column, CellType.STRING, CellType.STRING, ((LabelRecord) record).getValue(), null, style));
+            } else if (record instanceof BoolErrRecord) {
+                final BoolErrRecord boolErr = (BoolErrRecord) record;
+                row.add(boolErr.isBoolean()
+                        ? new StreamCell(row, column, CellType.BOOLEAN, CellType.BOOLEAN, boolErr.getBooleanValue(), null, style)
+                        : new StreamCell(row, column, CellType.ERROR, CellType.ERROR, boolErr.getErrorValue(), null, style)
+                );
+            } else if (record instanceof BlankRecord) {
+                row.add(new StreamCell(row, column, CellType.BLANK, CellType.BLANK, null, null, style));
+            }
+        }
+
+        private void addFormula() {
+            final FormulaRecord record = formula;
+            formula = null;
+            final StreamRow row = row(record.getRow());
+            // FormulaRecord 只提供 int 类型的计算结果类型，与 HSSFCell 相同使用 forInt 转换
+            @SuppressWarnings("deprecation") final CellType cachedType = CellType.forInt(record.getCachedResultType());
+            final Object value;
+            switch (cachedType) {
+                case NUMERIC:
+                    value = record.getValue();
+                    break;
+                case STRING:
+                    value = record.hasCachedResultString() ? Optional.ofNullable(formulaString).orElse("") : "";
+                    break;
+                case BOOLEAN:
+                    value = record.getCachedBooleanValue();
+                    break;
+                case ERROR:
+                    value = (byte) record.getCachedErrorValue();
+                    break;
+                default:
+                    value = null;
+                    break;
+            }
+            row.add(new StreamCell(row, record.getColumn(), CellType.FORMULA, cachedType, value, formulaText(record), style(formats.getFormatString(record))));
+        }
+
+        /**
+         * 公式文本；共享公式按所在单元格展开
+         */
+        private String formulaText(final FormulaRecord record) {
+            Ptg[] ptgs = record.getParsedExpression();
+            if (record.isSharedFormula()) {
+                ptgs = sharedFormulas.stream()
+                        .filter(shared -> shared.isInRange(record.getRow(), record.getColumn()))
+                        .findFirst()
+                        .map(shared -> shared.getFormulaTokens(record))
+                        .orElse(ptgs);
+            }
+            try {
+                return HSSFFormulaParser.toFormulaString(collector.getStubHSSFWorkbook(), ptgs);
+            } catch (RuntimeException e) {
+                // 数组公式、模拟运算表等无法还原的公式只保留计算结果
+                return "";
+            }
+        }
+
+        private void finish() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (Objects.nonNull(formula)) {
+                addFormula();
+            }
+            if (Objects.nonNull(current)) {
+                endRow(current.getRowNum());
+            }
+            emptyRows(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            records.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ihrm.report.excelModel.excel;
 
+import com.alibaba.fastjson.JSONObject;
 import com.ihrm.report.excelModel.excel.entity.Cell;
 import com.ihrm.report.excelModel.excel.enums.DataType;
 import com.ihrm.report.excelModel.util.Util;
@@ -109,4 +110,67 @@ public interface ISheetReader<T extends ISheetReader> extends ISheet<T>, ICellRe
         return map;
     }
 
+    /**
+     * 获取当前行指定列数据
+     *
+     * @param headers {@link List}{@link List< com.ihrm.report.excelModel.excel.entity.Cell >} 来自 {@link ISheetReader#headers()}
+     * @return {@link com.ihrm.report.excelModel.excel.entity.Row}{@link com.ihrm.report.excelModel.excel.entity.Row<int:Header对象中的index字段值, String:单元格内容>}
+     */
+    default com.ihrm.report.excelModel.excel.entity.Row rowObject(final List<com.ihrm.report.excelModel.excel.entity.Cell> headers) {
+//        final LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        final com.ihrm.report.excelModel.excel.entity.Row row = com.ihrm.report.excelModel.excel.entity.Row.build();
+        headers.forEach(header -> row.addCell(header.index(),
+                com.ihrm.report.excelModel.excel.entity.Cell.builder()
+                        .text(cell(header.index()).stringValue())
+//                        .type()
+//                        .value()
+//                        .formula()
+//                        .sindex()
+                        .build()
+        ));
+        return row;
+    }
+
+    /**
+     * 获取当前行指定列数据
+     *
+     * @param mapHeaders {@link Map}{@link Map<String:列头字段名, Integer:列索引>} 来自 {@link ISheetReader#mapHeaders()}
+     * @return {@link LinkedHashMap}{@link LinkedHashMap<String:Header对象中的label字段值, String:单元格内容>}
+     */
+    default LinkedHashMap<String, String> rowObject(final Map<String, Integer> mapHeaders) {
+        final LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        mapHeaders.forEach((key, value) -> map.put(key, cell(value).stringValue()));
+        return map;
+    }
+
+    /**
+     * 获取当前行，整行数据
+     *
+     * @return {@link LinkedHashMap}{@link LinkedHashMap<Integer:列索引, String:单元格内容>}
+     */
+    default LinkedHashMap<Integer, String> rowObject() {
+        final LinkedHashMap<Integer, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < getRow().getLastCellNum(); i++) {
+            map.put(i, cell(i).stringValue());
+        }
+        return map;
+    }
+
+    /**
+     * 获取当前行指定列数据
+     *
+     * @param headers {@link List}{@link List<com.ihrm.report.excelModel.excel.entity.Cell >} 来自 {@link ISheetReader#headers()}
+     * @return {@link JSONObject}{@link JSONObject<int:Header对象中的alias或label, String:单元格内容>}
+     */
+    default JSONObject rowJSONObject(final List<com.ihrm.report.excelModel.excel.entity.Cell> headers) {
+//        final LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        final JSONObject row = new JSONObject(true);
+        headers.forEach(header -> {
+            // T 的上界是原始类型，value() 返回原始类型 Optional
+            final Optional<?> value = cell(header.index()).value();
+            value.ifPresent(v -> row.put(Optional.ofNullable(header.getAlias()).orElseGet(header::getLabel), v));
+        });
+        return row;
+    }
+
 }
\ No newline at end of file
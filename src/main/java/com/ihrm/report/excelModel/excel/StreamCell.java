@@ -0,0 +1,293 @@
+package com.ihrm.report.excelModel.excel;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * 流式读取的只读单元格，值的取法与 POI 一致：类型不匹配时抛出 {@link IllegalStateException}，空白单元格返回 0 / "" / false
+ * 不关联 {@link Sheet}，不包含批注和超链接，所有写操作抛出 {@link UnsupportedOperationException}
+ */
+final class StreamCell implements Cell {
+    /**
+     * @param row        {@link StreamRow} 所在行
+     * @param column     int 列索引
+     * @param type       {@link CellType} 单元格类型
+     * @param cachedType {@link CellType} 公式计算结果类型，非公式单元格与 type 相同
+     * @param value      {@link Object} 值：{@link String}、{@link Double}、{@link Boolean}、{@link Byte}（错误码），空白单元格为 null
+     * @param formula    {@link String} 公式，非公式单元格为 null
+     * @param style      {@link CellStyle} 样式
+     */
+    StreamCell(final StreamRow row, final int column, final CellType type, final CellType cachedType,
+               final Object value, final String formula, final CellStyle style) {
+        this.row = row;
+        this.column = column;
+        this.type = type;
+        this.cachedType = cachedType;
+        this.value = value;
+        this.formula = formula;
+        this.style = style;
+    }
+
+    private final StreamRow row;
+    private final int column;
+    private final CellType type;
+    private final CellType cachedType;
+    private final Object value;
+    private final String formula;
+    private final CellStyle style;
+
+    private IllegalStateException typeMismatch(final CellType expected) {
+        return new IllegalStateException(String.format("Cannot get a %s value from a %s%s cell",
+                expected, Objects.equals(CellType.FORMULA, type) ? "FORMULA " : "", cachedType));
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return column;
+    }
+
+    @Override
+    public int getRowIndex() {
+        return row.getRowNum();
+    }
+
+    @Override
+    public Row getRow() {
+        return row;
+    }
+
+    @Override
+    public CellAddress getAddress() {
+        return new CellAddress(row.getRowNum(), column);
+    }
+
+    @Override
+    public CellType getCellType() {
+        return type;
+    }
+
+    @Override
+    @Deprecated
+    public CellType getCellTypeEnum() {
+        return type;
+    }
+
+    @Override
+    public CellType getCachedFormulaResultType() {
+        if (!Objects.equals(CellType.FORMULA, type)) {
+            throw new IllegalStateException("Only formula cells have cached results");
+        }
+        return cachedType;
+    }
+
+    @Override
+    @Deprecated
+    public CellType getCachedFormulaResultTypeEnum() {
+        return getCachedFormulaResultType();
+    }
+
+    @Override
+    public String getCellFormula() {
+        if (!Objects.equals(CellType.FORMULA, type)) {
+            throw typeMismatch(CellType.FORMULA);
+        }
+        return formula;
+    }
+
+    @Override
+    public double getNumericCellValue() {
+        switch (cachedType) {
+            case BLANK:
+                return 0D;
+            case NUMERIC:
+                return (Double) value;
+            default:
+                throw typeMismatch(CellType.NUMERIC);
+        }
+    }
+
+    @Override
+    public Date getDateCellValue() {
+        if (Objects.equals(CellType.BLANK, cachedType)) {
+            return null;
+        }
+        return DateUtil.getJavaDate(getNumericCellValue(), row.book.date1904);
+    }
+
+    @Override
+    public RichTextString getRichStringCellValue() {
+        switch (cachedType) {
+            case BLANK:
+                return row.book.text.apply("");
+            case STRING:
+                return row.book.text.apply((String) value);
+            default:
+                throw typeMismatch(CellType.STRING);
+        }
+    }
+
+    @Override
+    public String getStringCellValue() {
+        switch (cachedType) {
+            case BLANK:
+                return "";
+            case STRING:
+                return (String) value;
+            default:
+                throw typeMismatch(CellType.STRING);
+        }
+    }
+
+    @Override
+    public boolean getBooleanCellValue() {
+        switch (cachedType) {
+            case BLANK:
+                return false;
+            case BOOLEAN:
+                return (Boolean) value;
+            default:
+                throw typeMismatch(CellType.BOOLEAN);
+        }
+    }
+
+    @Override
+    public byte getErrorCellValue() {
+        if (Objects.equals(CellType.ERROR, cachedType)) {
+            return (Byte) value;
+        }
+        throw typeMismatch(CellType.ERROR);
+    }
+
+    @Override
+    public CellStyle getCellStyle() {
+        return style;
+    }
+
+    @Override
+    public Comment getCellComment() {
+        return null;
+    }
+
+    @Override
+    public Hyperlink getHyperlink() {
+        return null;
+    }
+
+    @Override
+    public CellRangeAddress getArrayFormulaRange() {
+        throw new IllegalStateException("流式读取不支持数组公式区域");
+    }
+
+    @Override
+    public boolean isPartOfArrayFormulaGroup() {
+        return false;
+    }
+
+    @Override
+    public Sheet getSheet() {
+        throw new UnsupportedOperationException("流式读取的单元格不关联 Sheet");
+    }
+
+    @Override
+    public String toString() {
+        switch (cachedType) {
+            case BLANK:
+                return "";
+            case ERROR:
+                return FormulaError.forInt((Byte) value).getString();
+            default:
+                return Objects.equals(CellType.FORMULA, type) ? formula : String.valueOf(value);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void setCellType(final CellType cellType) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setBlank() {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellValue(final double value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellValue(final Date value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellValue(final Calendar value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellValue(final RichTextString value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellValue(final String value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellValue(final boolean value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellFormula(final String formula) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void removeFormula() {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellErrorValue(final byte value) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellStyle(final CellStyle style) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setAsActiveCell() {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setCellComment(final Comment comment) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void removeCellComment() {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void setHyperlink(final Hyperlink link) {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+
+    @Override
+    public void removeHyperlink() {
+        throw new UnsupportedOperationException("流式读取的单元格是只读的");
+    }
+}
@@ -0,0 +1,222 @@
+package com.ihrm.report.excelModel.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 流式读取的只读行，由 {@link ExcelStreamReader} 逐行解析生成，读取下一行之后即可回收
+ * 不关联 {@link Sheet}，所有写操作抛出 {@link UnsupportedOperationException}
+ */
+final class StreamRow implements Row {
+    StreamRow(final int rowNum, final Book book) {
+        this.rowNum = rowNum;
+        this.book = book;
+    }
+
+    /**
+     * 同一个工作簿中所有行共用的信息
+     */
+    static final class Book {
+        /**
+         * @param date1904     boolean 日期是否使用 1904 日期系统
+         * @param defaultStyle {@link CellStyle} 默认样式，没有指定样式的单元格使用
+         * @param text         {@link Function}{@link Function<String, RichTextString>} 按工作簿格式创建富文本，读取富文本时才创建
+         */
+        Book(final boolean date1904, final CellStyle defaultStyle, final Function<String, RichTextString> text) {
+            this.date1904 = date1904;
+            this.defaultStyle = defaultStyle;
+            this.text = text;
+        }
+
+        final boolean date1904;
+        final CellStyle defaultStyle;
+        final Function<String, RichTextString> text;
+    }
+
+    private final int rowNum;
+    final Book book;
+    /**
+     * 按列索引存放，没有数据的列为 null
+     */
+    private final List<StreamCell> cells = new ArrayList<>();
+    private int physicalNumberOfCells;
+    private short height = -1;
+    private boolean zeroHeight;
+
+    /**
+     * 添加单元格，同一列重复出现时后者覆盖前者
+     */
+    void add(final StreamCell cell) {
+        final int index = cell.getColumnIndex();
+        while (cells.size() <= index) {
+            cells.add(null);
+        }
+        if (Objects.isNull(cells.set(index, cell))) {
+            physicalNumberOfCells++;
+        }
+    }
+
+    /**
+     * 下一个单元格的列索引，单元格没有标注列号时使用
+     */
+    int nextColumnIndex() {
+        return cells.size();
+    }
+
+    void setHeightValue(final short height) {
+        this.height = height;
+    }
+
+    void setZeroHeightValue(final boolean zeroHeight) {
+        this.zeroHeight = zeroHeight;
+    }
+
+    @Override
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    @Override
+    public Cell getCell(final int cellnum) {
+        return cellnum < 0 || cellnum >= cells.size() ? null : cells.get(cellnum);
+    }
+
+    @Override
+    public Cell getCell(final int cellnum, final MissingCellPolicy policy) {
+        final Cell cell = getCell(cellnum);
+        switch (policy) {
+            case RETURN_BLANK_AS_NULL:
+                return Objects.nonNull(cell) && Objects.equals(CellType.BLANK, cell.getCellType()) ? null : cell;
+            case CREATE_NULL_AS_BLANK:
+                return Objects.isNull(cell) ? new StreamCell(this, cellnum, CellType.BLANK, CellType.BLANK, null, null, book.defaultStyle) : cell;
+            case RETURN_NULL_AND_BLANK:
+            default:
+                return cell;
+        }
+    }
+
+    @Override
+    public short getFirstCellNum() {
+        for (int i = 0; i < cells.size(); i++) {
+            if (Objects.nonNull(cells.get(i))) {
+                return (short) i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public short getLastCellNum() {
+        return cells.isEmpty() ? -1 : (short) cells.size();
+    }
+
+    @Override
+    public int getPhysicalNumberOfCells() {
+        return physicalNumberOfCells;
+    }
+
+    @Override
+    public short getHeight() {
+        return height;
+    }
+
+    @Override
+    public float getHeightInPoints() {
+        return height == -1 ? -1 : height / 20F;
+    }
+
+    @Override
+    public boolean getZeroHeight() {
+        return zeroHeight;
+    }
+
+    @Override
+    public boolean isFormatted() {
+        return false;
+    }
+
+    @Override
+    public CellStyle getRowStyle() {
+        return null;
+    }
+
+    @Override
+    public int getOutlineLevel() {
+        return 0;
+    }
+
+    @Override
+    public Iterator<Cell> cellIterator() {
+        return cells.stream().filter(Objects::nonNull).map(Cell.class::cast).iterator();
+    }
+
+    @Override
+    public Iterator<Cell> iterator() {
+        return cellIterator();
+    }
+
+    @Override
+    public Sheet getSheet() {
+        throw new UnsupportedOperationException("流式读取的行不关联 Sheet");
+    }
+
+    @Override
+    public Cell createCell(final int column) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public Cell createCell(final int column, final CellType type) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void removeCell(final Cell cell) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void setRowNum(final int rowNum) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void setHeight(final short height) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void setZeroHeight(final boolean zHeight) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void setHeightInPoints(final float height) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void setRowStyle(final CellStyle style) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void shiftCellsRight(final int firstShiftColumnIndex, final int lastShiftColumnIndex, final int step) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+
+    @Override
+    public void shiftCellsLeft(final int firstShiftColumnIndex, final int lastShiftColumnIndex, final int step) {
+        throw new UnsupportedOperationException("流式读取的行是只读的");
+    }
+}
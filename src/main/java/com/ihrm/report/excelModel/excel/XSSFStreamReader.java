@@ -0,0 +1,399 @@
+package com.ihrm.report.excelModel.excel;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.crypt.Decryptor;
+import org.apache.poi.poifs.crypt.EncryptionInfo;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 【.xlsx】 流式读取：以只读方式打开压缩包，StAX 逐行解析 sheet xml
+ * 常驻内存的只有共享字符串表（只保留文本）和样式表；共享公式的从属单元格只有计算结果，公式为空字符串
+ */
+final class XSSFStreamReader extends ExcelStreamReader {
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * 打开文件；加密文件先解密到临时文件，关闭时删除
+     *
+     * @param file     {@link File}
+     * @param password {@link String} 打开密码，文件未加密时忽略
+     * @return {@link XSSFStreamReader}
+     */
+    static XSSFStreamReader create(final File file, final String password) throws Exception {
+        if (Objects.isNull(password) || FileMagic.valueOf(file) != FileMagic.OLE2) {
+            return new XSSFStreamReader(file, null);
+        }
+        final File temp = File.createTempFile("excel-", ".xlsx");
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            final Decryptor decryptor = Decryptor.getInstance(new EncryptionInfo(fs));
+            if (!decryptor.verifyPassword(password)) {
+                throw new EncryptedDocumentException("密码错误：".concat(file.getName()));
+            }
+            try (InputStream is = decryptor.getDataStream(fs)) {
+                Files.copy(is, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new XSSFStreamReader(temp, temp);
+        } catch (Exception e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+    }
+
+    private XSSFStreamReader(final File file, final File temp) throws Exception {
+        this.temp = temp;
+        this.pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            final XSSFReader reader = new XSSFReader(pkg);
+            this.strings = sharedStrings(pkg);
+            this.styles = reader.getStylesTable();
+            final XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (iterator.hasNext()) {
+                iterator.next().close();
+                names.add(iterator.getSheetName());
+                parts.add(iterator.getSheetPart());
+            }
+            try (InputStream is = reader.getWorkbookData()) {
+                this.book = new StreamRow.Book(workbook(is), styleAt(0), XSSFRichTextString::new);
+            }
+        } catch (Exception e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * 解密后的临时文件，关闭时删除
+     */
+    private final File temp;
+    private final OPCPackage pkg;
+    /**
+     * 共享字符串表，只保留文本
+     */
+    private final List<String> strings;
+    private final StylesTable styles;
+    private final StreamRow.Book book;
+    private final List<String> names = new ArrayList<>();
+    /**
+     * 隐藏的 sheet 名称
+     */
+    private final Set<String> hidden = new HashSet<>();
+    private final List<PackagePart> parts = new ArrayList<>();
+    private final Map<Integer, CellStyle> styleCache = new HashMap<>();
+
+    /**
+     * 读取 workbook.xml 中的 &lt;workbookPr date1904="1"/&gt; 和隐藏的 &lt;sheet state="hidden"/&gt;
+     *
+     * @return boolean 日期是否使用 1904 日期系统
+     */
+    private boolean workbook(final InputStream is) throws XMLStreamException {
+        final XMLStreamReader xml = FACTORY.createXMLStreamReader(is);
+        try {
+            boolean date1904 = false;
+            while (xml.hasNext()) {
+                final int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("workbookPr".equals(xml.getLocalName())) {
+                        final String value = xml.getAttributeValue(null, "date1904");
+                        date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+                    } else if ("sheet".equals(xml.getLocalName())) {
+                        final String state = xml.getAttributeValue(null, "state");
+                        if ("hidden".equals(state) || "veryHidden".equals(state)) {
+                            hidden.add(xml.getAttributeValue(null, "name"));
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "sheets".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+            return date1904;
+        } finally {
+            xml.close();
+        }
+    }
+
+    /**
+     * 读取 sharedStrings.xml，每个 &lt;si&gt; 只保留文本
+     */
+    private static List<String> sharedStrings(final OPCPackage pkg) throws IOException, XMLStreamException {
+        final List<String> list = new ArrayList<>();
+        final List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+        if (parts.isEmpty()) {
+            return list;
+        }
+        final InputStream is = parts.get(0).getInputStream();
+        try {
+            final XMLStreamReader xml = FACTORY.createXMLStreamReader(is);
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && "si".equals(xml.getLocalName())) {
+                        list.add(text(xml, "si"));
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } finally {
+            is.close();
+        }
+        return list;
+    }
+
+    /**
+     * 读取 &lt;si&gt; 或 &lt;is&gt; 中的文本：&lt;t&gt;..&lt;/t&gt; 或 &lt;r&gt;&lt;t&gt;..&lt;/t&gt;&lt;/r&gt;，忽略拼音 &lt;rPh&gt;
+     *
+     * @param xml {@link XMLStreamReader} 位于开始标签
+     * @param end {@link String} 结束标签名
+     */
+    private static String text(final XMLStreamReader xml, final String end) throws XMLStreamException {
+        final StringBuilder sb = new StringBuilder();
+        int phonetic = 0;
+        while (xml.hasNext()) {
+            final int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("rPh".equals(xml.getLocalName())) {
+                    phonetic++;
+                } else if ("t".equals(xml.getLocalName()) && phonetic == 0) {
+                    sb.append(xml.getElementText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if ("rPh".equals(xml.getLocalName())) {
+                    phonetic--;
+                } else if (end.equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 单元格坐标中的列索引，如：AB12 => 27
+     */
+    private static int column(final String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            final char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private CellStyle styleAt(final int index) {
+        return styleCache.computeIfAbsent(index, styles::getStyleAt);
+    }
+
+    @Override
+    List<String> sheetNames() {
+        return names;
+    }
+
+    @Override
+    boolean hidden(final int index) {
+        return hidden.contains(names.get(index));
+    }
+
+    @Override
+    RowSource open(final int index) throws IOException {
+        final InputStream is = parts.get(index).getInputStream();
+        try {
+            return new SheetSource(is, FACTORY.createXMLStreamReader(is));
+        } catch (XMLStreamException e) {
+            is.close();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    void release() throws IOException {
+        // 只读打开，放弃修改即关闭
+        pkg.revert();
+        if (Objects.nonNull(temp)) {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * 解析一个 sheet 的 &lt;sheetData&gt;
+     */
+    private final class SheetSource implements RowSource {
+        private SheetSource(final InputStream is, final XMLStreamReader xml) {
+            this.is = is;
+            this.xml = xml;
+        }
+
+        private final InputStream is;
+        private final XMLStreamReader xml;
+        private int lastRowIndex = -1;
+        private int previousRowNum = -1;
+
+        @Override
+        public int lastRowIndex() {
+            return lastRowIndex;
+        }
+
+        @Override
+        public StreamRow read() throws IOException {
+            try {
+                while (xml.hasNext()) {
+                    if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    if ("dimension".equals(xml.getLocalName())) {
+                        final String ref = xml.getAttributeValue(null, "ref");
+                        if (Objects.nonNull(ref)) {
+                            lastRowIndex = ref.contains(":")
+                                    ? CellRangeAddress.valueOf(ref).getLastRow()
+                                    : new CellReference(ref).getRow();
+                        }
+                    } else if ("row".equals(xml.getLocalName())) {
+                        return row();
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private StreamRow row() throws XMLStreamException {
+            final String r = xml.getAttributeValue(null, "r");
+            final StreamRow row = new StreamRow(Objects.isNull(r) ? previousRowNum + 1 : Integer.parseInt(r) - 1, book);
+            previousRowNum = row.getRowNum();
+            final String ht = xml.getAttributeValue(null, "ht");
+            if (Objects.nonNull(ht)) {
+                row.setHeightValue((short) (Double.parseDouble(ht) * 20));
+            }
+            row.setZeroHeightValue("1".equals(xml.getAttributeValue(null, "hidden")));
+            while (xml.hasNext()) {
+                final int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                    row.add(cell(row));
+                } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+            return row;
+        }
+
+        private StreamCell cell(final StreamRow row) throws XMLStreamException {
+            final String r = xml.getAttributeValue(null, "r");
+            final String s = xml.getAttributeValue(null, "s");
+            final String t = Optional.ofNullable(xml.getAttributeValue(null, "t")).orElse("n");
+            final int column = Objects.isNull(r) ? row.nextColumnIndex() : column(r);
+            final CellStyle style = Objects.isNull(s) ? book.defaultStyle : styleAt(Integer.parseInt(s));
+            String formula = null;
+            String v = null;
+            String inline = null;
+            while (xml.hasNext()) {
+                final int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "f":
+                            formula = xml.getElementText();
+                            break;
+                        case "v":
+                            v = xml.getElementText();
+                            break;
+                        case "is":
+                            inline = text(xml, "is");
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+            CellType type;
+            Object value;
+            switch (t) {
+                case "s":
+                    type = Objects.isNull(v) ? CellType.BLANK : CellType.STRING;
+                    value = Objects.isNull(v) ? null : strings.get(Integer.parseInt(v));
+                    break;
+                case "inlineStr":
+                    type = CellType.STRING;
+                    value = Optional.ofNullable(inline).orElse("");
+                    break;
+                case "str":
+                    type = CellType.STRING;
+                    value = Optional.ofNullable(v).orElse("");
+                    break;
+                case "b":
+                    type = Objects.isNull(v) ? CellType.BLANK : CellType.BOOLEAN;
+                    value = Objects.isNull(v) ? null : "1".equals(v) || "true".equalsIgnoreCase(v);
+                    break;
+                case "e":
+                    type = Objects.isNull(v) ? CellType.BLANK : CellType.ERROR;
+                    value = Objects.isNull(v) ? null : FormulaError.forString(v).getCode();
+                    break;
+                case "d":
+                    type = Objects.isNull(v) ? CellType.BLANK : CellType.NUMERIC;
+                    value = Objects.isNull(v) ? null : isoDate(v);
+                    break;
+                case "n":
+                default:
+                    type = Objects.isNull(v) || v.isEmpty() ? CellType.BLANK : CellType.NUMERIC;
+                    value = CellType.BLANK == type ? null : Double.parseDouble(v);
+                    break;
+            }
+            return Objects.isNull(formula)
+                    ? new StreamCell(row, column, type, type, value, null, style)
+                    : new StreamCell(row, column, CellType.FORMULA, type, value, formula, style);
+        }
+
+        private double isoDate(final String value) {
+            final LocalDateTime dateTime = value.contains("T")
+                    ? LocalDateTime.parse(value.endsWith("Z") ? value.substring(0, value.length() - 1) : value)
+                    : LocalDate.parse(value).atStartOfDay();
+            return DateUtil.getExcelDate(Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant()), book.date1904);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            } finally {
+                is.close();
+            }
+        }
+    }
+}
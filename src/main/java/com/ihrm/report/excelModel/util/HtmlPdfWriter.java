@@ -3,14 +3,46 @@ package com.ihrm.report.excelModel.util;
 
 
 import com.itextpdf.text.*;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
 import com.itextpdf.text.pdf.*;
+import com.itextpdf.tool.xml.XMLWorker;
+import com.itextpdf.tool.xml.XMLWorkerFontProvider;
 import com.itextpdf.tool.xml.XMLWorkerHelper;
+import com.itextpdf.tool.xml.css.CssFile;
+import com.itextpdf.tool.xml.css.CssFilesImpl;
+import com.itextpdf.tool.xml.css.StyleAttrCSSResolver;
+import com.itextpdf.tool.xml.html.CssAppliersImpl;
+import com.itextpdf.tool.xml.html.TagProcessorFactory;
+import com.itextpdf.tool.xml.html.Tags;
+import com.itextpdf.tool.xml.parser.XMLParser;
+import com.itextpdf.tool.xml.pipeline.css.CssResolverPipeline;
+import com.itextpdf.tool.xml.pipeline.end.PdfWriterPipeline;
+import com.itextpdf.tool.xml.pipeline.html.HtmlPipeline;
+import com.itextpdf.tool.xml.pipeline.html.HtmlPipelineContext;
 import lombok.Cleanup;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static com.ihrm.report.excelModel.enums.Charsets.UTF_8;
 
@@ -45,8 +77,34 @@ public final class HtmlPdfWriter {
     private String watermark;
     /**
      * 页面写入事件监听,当设置了此参数，watermark 参数则无效，水印需在此参数中自行添加
+     * 事件对象通常有状态，不能在多个 {@link PdfWriter} 中共用，分块转换时使用 {@link #pageEventFactory}
      */
     private PdfPageEvent pageEvent;
+    /**
+     * 页面写入事件监听的创建方法，每个 {@link PdfWriter} 创建一个新对象；与 {@link #pageEvent} 同时设置时 pageEvent 优先
+     */
+    private Supplier<PdfPageEvent> pageEventFactory;
+    /**
+     * 写入的输出流，设置后不再写入 pdf 文件，输出流由调用方关闭
+     */
+    private OutputStream outputStream;
+    /**
+     * 转换管道，为 null 时按 css 文件从缓存中获取 {@link Pipeline#of(File)}
+     */
+    private Pipeline pipeline;
+    /**
+     * 分块转换时长表格每块的行数，0 表示不分块；分块规则见 {@link HtmlSplitter}
+     */
+    private int chunkRows;
+    /**
+     * 分块转换时同时转换的块数
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * 页码格式，{0}：当前页，{1}：总页数，如：第 {0} 页 / 共 {1} 页；为 null 表示不加页码
+     * 不分块时在转换过程中添加，总页数先占位，文档结束时填入；分块或 {1} 指定了格式（如 {1,number,#}）时需要缓存整个 html，见 {@link #writeChunks(String)}
+     */
+    private String pageNumber;
 
     public HtmlPdfWriter setCss(File css) {
         this.css = css;
@@ -58,6 +116,16 @@ public final class HtmlPdfWriter {
         return this;
     }
 
+    public HtmlPdfWriter setOutputStream(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+        return this;
+    }
+
+    public HtmlPdfWriter setChannel(final WritableByteChannel channel) {
+        this.outputStream = Channels.newOutputStream(channel);
+        return this;
+    }
+
     public HtmlPdfWriter setRectangle(final RectangleReadOnly rectangle) {
         this.rectangle = rectangle;
         return this;
@@ -73,6 +141,31 @@ public final class HtmlPdfWriter {
         return this;
     }
 
+    public HtmlPdfWriter setPageEventFactory(final Supplier<PdfPageEvent> pageEventFactory) {
+        this.pageEventFactory = pageEventFactory;
+        return this;
+    }
+
+    public HtmlPdfWriter setPipeline(final Pipeline pipeline) {
+        this.pipeline = pipeline;
+        return this;
+    }
+
+    public HtmlPdfWriter setChunkRows(final int chunkRows) {
+        this.chunkRows = chunkRows;
+        return this;
+    }
+
+    public HtmlPdfWriter setParallelism(final int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public HtmlPdfWriter setPageNumber(final String pageNumber) {
+        this.pageNumber = pageNumber;
+        return this;
+    }
+
     /**
      * html写入pdf, 默认A3大小
      *
@@ -81,7 +174,8 @@ public final class HtmlPdfWriter {
      */
     @SneakyThrows
     public final File write(final File file) {
-        return write(new FileInputStream(file));
+        @Cleanup final InputStream inputStream = new FileInputStream(file);
+        return write(inputStream);
     }
 
     /**
@@ -91,50 +185,487 @@ public final class HtmlPdfWriter {
      * @return {@link File} 写入 PDF 文件路径
      */
     public final File write(final String html) {
+        if (buffered()) {
+            return writeChunks(html);
+        }
         return write(new ByteArrayInputStream(html.getBytes(UTF_8.charset)));
     }
 
     /**
-     * 将 html 写入到 PDF
+     * 将 html 写入到 PDF；设置了 {@link #setOutputStream(OutputStream)} 时写入输出流，否则写入 pdf 文件
      *
      * @param inputStream {@link InputStream} html文件数据流
-     * @return {@link File} 写入 PDF 文件路径
+     * @return {@link File} 写入 PDF 文件路径，写入输出流时返回 null
      */
     @SneakyThrows
     public final File write(final InputStream inputStream) {
-        if (!pdf.getParentFile().exists()) {
-            FPath.of(pdf.getParentFile()).mkdirs();
+        if (buffered()) {
+            final ByteArrayOutputStream html = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                html.write(buffer, 0, length);
+            }
+            return writeChunks(new String(html.toByteArray(), UTF_8.charset));
+        }
+        final OutputStream target;
+        if (Objects.nonNull(outputStream)) {
+            target = outputStream;
+        } else {
+            if (!pdf.getParentFile().exists()) {
+                FPath.of(pdf.getParentFile()).mkdirs();
+            }
+            target = new BufferedOutputStream(new FileOutputStream(pdf));
         }
         final Document document = new Document(rectangle);
         document.setMargins(0, 0, 0, 0);
-        @Cleanup final PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(pdf));
+        @Cleanup final PdfWriter writer = PdfWriter.getInstance(document, target);
+        // 输出流由调用方关闭
+        writer.setCloseStream(Objects.isNull(outputStream));
+        writer.setFullCompression();
 
         if (Objects.nonNull(pageEvent)) {
             writer.setPageEvent(pageEvent);
+        } else if (Objects.nonNull(pageEventFactory)) {
+            writer.setPageEvent(pageEventFactory.get());
         } else {
             if (Objects.nonNull(watermark)) {
+                final Watermark stamp = new Watermark(watermark);
                 writer.setPageEvent(new PdfPageEventHelper() {
-                    private Phrase phrase = new Phrase(watermark, new Font(com.itextpdf.text.Font.FontFamily.HELVETICA, 30, Font.BOLD, new GrayColor(0.95f)));
-
                     @Override
                     public void onEndPage(final PdfWriter writer, final Document document) {
-                        RangeInt.of(0, 2).forEach(x ->
-                                RangeInt.of(0, 2).forEach(y ->
-                                        ColumnText.showTextAligned(writer.getDirectContentUnder(), Element.ALIGN_CENTER, phrase, (50.5f + x * 350), (50.0f + y * 300), 45)
-                                )
-                        );
+                        stamp.stamp(writer.getDirectContentUnder(), document.getPageSize());
                     }
                 });
             }
         }
+        final Pipeline shared = Objects.nonNull(pipeline) ? pipeline : Pipeline.of(css);
+        if (Objects.nonNull(pageNumber)) {
+            writer.setPageEvent(new PageNumberEvent(shared.font(9)));
+        }
         document.open();
-        XMLWorkerHelper.getInstance().parseXHtml(writer, document,
-                inputStream,
-                new FileInputStream(css),
-                UTF_8.charset);
+        shared.parse(writer, document, inputStream, UTF_8.charset);
 
         document.close();
+        if (Objects.nonNull(outputStream)) {
+            outputStream.flush();
+            return null;
+        }
+        FPath.of(pdf).chmod(644);
+        return pdf;
+    }
+
+    /**
+     * 是否需要缓存整个 html：分块转换，或页码中的总页数 {1} 指定了格式（不能先占位）
+     */
+    private boolean buffered() {
+        if (chunkRows > 0) {
+            return true;
+        }
+        if (Objects.isNull(pageNumber)) {
+            return false;
+        }
+        final Format[] formats = new MessageFormat(pageNumber).getFormatsByArgumentIndex();
+        return formats.length > 1 && Objects.nonNull(formats[1]);
+    }
+
+    /**
+     * 分块转换：按 {@link HtmlSplitter} 拆分后在线程池中并发转换，按顺序等待每块完成后立即用 {@link PdfSmartCopy} 合并并释放，
+     * 同时保留在内存中的块不超过 {@link #parallelism}，各块共用的字体、图片只保存一份；水印和页码在合并时按整个文档添加
+     * 页码格式包含总页数 {1} 时先合并到临时文件，再逐页添加页码
+     * 页面写入事件监听只能通过 {@link #setPageEventFactory(Supplier)} 设置，每块创建一个新对象，其中的页码从每块第一页重新开始
+     *
+     * @param html {@link String} html文件内容
+     * @return {@link File} 写入 PDF 文件路径，写入输出流时返回 null
+     */
+    @SneakyThrows
+    private File writeChunks(final String html) {
+        if (Objects.nonNull(pageEvent)) {
+            throw new IllegalStateException("分块转换时页面写入事件监听不能共用，请使用 setPageEventFactory 设置");
+        }
+        final List<String> chunks = chunkRows > 0 ? HtmlSplitter.split(html, chunkRows) : Collections.singletonList(html);
+        final Pipeline shared = Objects.nonNull(pipeline) ? pipeline : Pipeline.of(css);
+        final boolean total = Objects.nonNull(pageNumber) && new MessageFormat(pageNumber).getFormatsByArgumentIndex().length > 1;
+        final File merged = total ? File.createTempFile("html-pdf-", ".pdf") : null;
+        final OutputStream target;
+        if (Objects.nonNull(merged)) {
+            target = new BufferedOutputStream(new FileOutputStream(merged));
+        } else if (Objects.nonNull(outputStream)) {
+            target = outputStream;
+        } else {
+            if (!pdf.getParentFile().exists()) {
+                FPath.of(pdf.getParentFile()).mkdirs();
+            }
+            target = new BufferedOutputStream(new FileOutputStream(pdf));
+        }
+        final Iterator<String> iterator = chunks.iterator();
+        final Deque<Future<byte[]>> futures = new ArrayDeque<>();
+        // 第一个失败的块；之后不再提交，已提交未开始的块直接结束
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        boolean completed = false;
+        try {
+            final Watermark stamp = Objects.nonNull(watermark) && Objects.isNull(pageEventFactory) ? new Watermark(watermark) : null;
+            final Font font = Objects.nonNull(pageNumber) && !total ? shared.font(9) : null;
+            final Document document = new Document();
+            final PdfSmartCopy copy = new PdfSmartCopy(document, target);
+            copy.setCloseStream(Objects.nonNull(merged) || Objects.isNull(outputStream));
+            copy.setFullCompression();
+            document.open();
+            int number = 0;
+            while (iterator.hasNext() || !futures.isEmpty()) {
+                while (iterator.hasNext() && Objects.isNull(failure.get()) && futures.size() < Math.max(1, parallelism)) {
+                    final String chunk = iterator.next();
+                    futures.add(ThreadPool.multi().submit(() -> {
+                        if (Objects.nonNull(failure.get())) {
+                            throw new CancellationException("前面的块转换失败");
+                        }
+                        try {
+                            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            HtmlPdfWriter.of()
+                                    .setRectangle(rectangle)
+                                    .setPipeline(shared)
+                                    .setPageEventFactory(pageEventFactory)
+                                    .setOutputStream(bytes)
+                                    .write(new ByteArrayInputStream(chunk.getBytes(UTF_8.charset)));
+                            return bytes.toByteArray();
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                            throw e;
+                        }
+                    }));
+                }
+                final PdfReader reader;
+                try {
+                    reader = new PdfReader(futures.poll().get());
+                } catch (ExecutionException e) {
+                    throw Objects.nonNull(failure.get()) ? failure.get() : e.getCause();
+                }
+                for (int i = 1; i <= reader.getNumberOfPages(); i++) {
+                    final PdfImportedPage page = copy.getImportedPage(reader, i);
+                    number++;
+                    if (Objects.nonNull(stamp) || Objects.nonNull(font)) {
+                        final Rectangle pageSize = reader.getPageSizeWithRotation(i);
+                        final PdfCopy.PageStamp pageStamp = copy.createPageStamp(page);
+                        if (Objects.nonNull(stamp)) {
+                            stamp.stamp(pageStamp.getUnderContent(), pageSize);
+                        }
+                        if (Objects.nonNull(font)) {
+                            pageNumber(pageStamp.getOverContent(), pageSize, font, number, 0);
+                        }
+                        pageStamp.alterContents();
+                    }
+                    copy.addPage(page);
+                }
+                // 合并后释放该块
+                copy.freeReader(reader);
+                reader.close();
+            }
+            document.close();
+            if (Objects.nonNull(merged)) {
+                stampPageNumbers(merged, shared.font(9));
+            }
+            if (Objects.nonNull(outputStream)) {
+                outputStream.flush();
+            }
+            completed = true;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            if (!completed && (Objects.nonNull(merged) || Objects.isNull(outputStream))) {
+                try {
+                    target.close();
+                } catch (IOException e) {
+                    log.warn("pdf 输出流关闭失败：{}", e.getMessage());
+                }
+            }
+            if (Objects.nonNull(merged) && !merged.delete()) {
+                merged.deleteOnExit();
+            }
+        }
+        if (Objects.nonNull(outputStream)) {
+            return null;
+        }
         FPath.of(pdf).chmod(644);
         return pdf;
     }
+
+    /**
+     * 给合并后的临时文件逐页添加页码，写入目标 pdf 文件或输出流；按需读取临时文件，不整个加载到内存
+     *
+     * @param merged {@link File} 合并后的临时文件
+     * @param font   {@link Font} 页码字体
+     */
+    private void stampPageNumbers(final File merged, final Font font) throws IOException, DocumentException {
+        final OutputStream target;
+        if (Objects.nonNull(outputStream)) {
+            target = outputStream;
+        } else {
+            if (!pdf.getParentFile().exists()) {
+                FPath.of(pdf.getParentFile()).mkdirs();
+            }
+            target = new BufferedOutputStream(new FileOutputStream(pdf));
+        }
+        final PdfReader reader = new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().createBestSource(merged.getAbsolutePath())), null);
+        try {
+            final PdfStamper stamper = new PdfStamper(reader, target);
+            stamper.getWriter().setCloseStream(Objects.isNull(outputStream));
+            stamper.setFullCompression();
+            final int total = reader.getNumberOfPages();
+            for (int i = 1; i <= total; i++) {
+                pageNumber(stamper.getOverContent(i), reader.getPageSizeWithRotation(i), font, i, total);
+            }
+            stamper.close();
+        } finally {
+            reader.close();
+            if (Objects.isNull(outputStream)) {
+                target.close();
+            }
+        }
+    }
+
+    /**
+     * 页面底部居中写入页码
+     */
+    private void pageNumber(final PdfContentByte over, final Rectangle pageSize, final Font font, final int number, final int total) {
+        ColumnText.showTextAligned(over, Element.ALIGN_CENTER,
+                new Phrase(MessageFormat.format(pageNumber, number, total), font),
+                (pageSize.getLeft() + pageSize.getRight()) / 2, pageSize.getBottom() + 10, 0);
+    }
+
+    /**
+     * 转换过程中添加页码：每页结束时写入页码，总页数写入所有页共用的 {@link PdfTemplate}，文档关闭时填入，不需要缓存整个文档
+     */
+    private final class PageNumberEvent extends PdfPageEventHelper {
+        /**
+         * 总页数占位符
+         */
+        private static final String TOTAL = "\u0000";
+        private final Font font;
+        private final BaseFont baseFont;
+        private PdfTemplate total;
+        private int pages;
+
+        private PageNumberEvent(final Font font) {
+            this.font = font;
+            this.baseFont = font.getCalculatedBaseFont(false);
+        }
+
+        @Override
+        public void onEndPage(final PdfWriter writer, final Document document) {
+            pages++;
+            final Rectangle pageSize = document.getPageSize();
+            final PdfContentByte over = writer.getDirectContent();
+            final String[] parts = MessageFormat.format(pageNumber, pages, TOTAL).split(TOTAL, -1);
+            if (parts.length == 1) {
+                pageNumber(over, pageSize, font, pages, 0);
+                return;
+            }
+            final float size = font.getSize();
+            final float descent = -baseFont.getFontDescriptor(BaseFont.DESCENT, size);
+            if (Objects.isNull(total)) {
+                // 预留 5 位数字的宽度
+                total = over.createTemplate(baseFont.getWidthPoint("00000", size), size + descent);
+            }
+            float width = (parts.length - 1) * total.getWidth();
+            for (String part : parts) {
+                width += baseFont.getWidthPoint(part, size);
+            }
+            float x = (pageSize.getLeft() + pageSize.getRight() - width) / 2;
+            final float y = pageSize.getBottom() + 10;
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    over.addTemplate(total, x, y - descent);
+                    x += total.getWidth();
+                }
+                ColumnText.showTextAligned(over, Element.ALIGN_LEFT, new Phrase(parts[i], font), x, y, 0);
+                x += baseFont.getWidthPoint(parts[i], size);
+            }
+        }
+
+        @Override
+        public void onCloseDocument(final PdfWriter writer, final Document document) {
+            if (Objects.nonNull(total)) {
+                ColumnText.showTextAligned(total, Element.ALIGN_LEFT, new Phrase(String.valueOf(pages), font),
+                        0, -baseFont.getFontDescriptor(BaseFont.DESCENT, font.getSize()), 0);
+            }
+        }
+    }
+
+    /**
+     * 默认水印：第一页时绘制到 {@link PdfTemplate}，每页只引用该模板，pdf 中只保存一份水印内容
+     */
+    private static final class Watermark {
+        private final Phrase phrase;
+        private PdfTemplate template;
+
+        private Watermark(final String watermark) {
+            this.phrase = new Phrase(watermark, new Font(com.itextpdf.text.Font.FontFamily.HELVETICA, 30, Font.BOLD, new GrayColor(0.95f)));
+        }
+
+        /**
+         * 水印写入页面底层
+         *
+         * @param under    {@link PdfContentByte} 页面底层内容
+         * @param pageSize {@link Rectangle} 页面大小
+         */
+        private void stamp(final PdfContentByte under, final Rectangle pageSize) {
+            if (Objects.isNull(template)) {
+                template = under.createTemplate(pageSize.getWidth(), pageSize.getHeight());
+                RangeInt.of(0, 2).forEach(x ->
+                        RangeInt.of(0, 2).forEach(y ->
+                                ColumnText.showTextAligned(template, Element.ALIGN_CENTER, phrase, (50.5f + x * 350), (50.0f + y * 300), 45)
+                        )
+                );
+            }
+            under.addTemplate(template, pageSize.getLeft(), pageSize.getBottom());
+        }
+    }
+
+    /**
+     * html 转 pdf 管道：预解析的 css、注册好中文字体的字体提供者、标签处理器，创建后可在多个线程中重复使用，
+     * 批量生成 pdf 时不再每次读取 css 和加载字体
+     * <pre>
+     * HtmlPdfWriter.of().setPipeline(HtmlPdfWriter.Pipeline.of(css)).setPdf(pdf).write(html);
+     * </pre>
+     */
+    public static final class Pipeline {
+        /**
+         * 默认字体列表（classpath 或文件路径，或已安装的系统字体名称），按顺序第一个可用的作为未指定字体或字体未注册时的默认字体；
+         * 随应用打包的 simsun 缺失时回退到系统中的中文字体，可通过 {@link #setFonts(String...)} 修改
+         */
+        private static volatile String[] fonts = {"fonts/simsun.ttf", "simsun", "宋体", "microsoft yahei", "微软雅黑", "simhei",
+                "noto sans cjk sc", "source han sans sc", "wenquanyi micro hei", "wenquanyi zen hei", "ar pl uming cn"};
+        /**
+         * 按 css 文件缓存；key：css 文件绝对路径，空字符串表示默认 css
+         */
+        private static final Map<String, Pipeline> CACHE = new ConcurrentHashMap<>();
+        /**
+         * 按字体列表缓存字体提供者，扫描系统字体目录的开销只在第一次使用时付出
+         */
+        private static final Map<List<String>, CjkFontProvider> FONT_PROVIDERS = new ConcurrentHashMap<>();
+
+        /**
+         * css 文件修改时间，文件修改后重新解析
+         */
+        private final long lastModified;
+        private final CssFile cssFile;
+        private final XMLWorkerFontProvider fontProvider;
+        private final TagProcessorFactory tagProcessorFactory;
+
+        private Pipeline(final CssFile cssFile, final long lastModified, final String... fonts) {
+            this.cssFile = cssFile;
+            this.lastModified = lastModified;
+            this.fontProvider = FONT_PROVIDERS.computeIfAbsent(Arrays.asList(fonts.clone()), CjkFontProvider::new);
+            this.tagProcessorFactory = Tags.getHtmlTagProcessorFactory();
+        }
+
+        /**
+         * 设置默认字体列表，已缓存的管道失效
+         *
+         * @param fonts 字体（classpath 或文件路径，或系统字体名称），第一个可用的作为默认字体
+         */
+        public static void setFonts(final String... fonts) {
+            Pipeline.fonts = fonts.clone();
+            CACHE.clear();
+        }
+
+        /**
+         * 获取 css 文件对应的管道，同一 css 文件只解析一次，文件修改后重新解析
+         *
+         * @param css {@link File} css文件，为 null 时使用 XMLWorker 默认 css
+         * @return {@link Pipeline}
+         */
+        public static Pipeline of(final File css) {
+            if (Objects.isNull(css)) {
+                return CACHE.computeIfAbsent("", key -> new Pipeline(XMLWorkerHelper.getInstance().getDefaultCSS(), 0, fonts));
+            }
+            final long lastModified = css.lastModified();
+            return CACHE.compute(css.getAbsolutePath(), (key, cached) ->
+                    Objects.nonNull(cached) && cached.lastModified == lastModified ? cached : of(css, fonts)
+            );
+        }
+
+        /**
+         * 创建管道，不缓存；相同字体列表共用字体提供者
+         *
+         * @param css   {@link File} css文件
+         * @param fonts 字体（classpath 或文件路径，或系统字体名称），第一个可用的作为默认字体
+         * @return {@link Pipeline}
+         */
+        @SneakyThrows
+        public static Pipeline of(final File css, final String... fonts) {
+            @Cleanup final InputStream inputStream = new FileInputStream(css);
+            return new Pipeline(XMLWorkerHelper.getCSS(inputStream), css.lastModified(), fonts);
+        }
+
+        /**
+         * 管道字体提供者中的默认字体（已注册中文字体时为中文字体）
+         *
+         * @param size 字号
+         * @return {@link Font}
+         */
+        Font font(final float size) {
+            return fontProvider.getFont(null, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, Font.NORMAL, BaseColor.GRAY);
+        }
+
+        /**
+         * 解析 html 写入 pdf；每次调用创建独立的 css 解析器和管道上下文，共享 css、字体和标签处理器
+         *
+         * @param writer      {@link PdfWriter}
+         * @param document    {@link Document} 已打开的文档
+         * @param inputStream {@link InputStream} html文件数据流
+         * @param charset     {@link Charset} html 编码
+         */
+        public void parse(final PdfWriter writer, final Document document, final InputStream inputStream, final Charset charset) throws IOException {
+            final HtmlPipelineContext context = new HtmlPipelineContext(new CssAppliersImpl(fontProvider));
+            context.setAcceptUnknown(true).autoBookmark(true).setTagFactory(tagProcessorFactory);
+            final XMLWorker worker = new XMLWorker(
+                    new CssResolverPipeline(
+                            new StyleAttrCSSResolver(new CssFilesImpl(cssFile)),
+                            new HtmlPipeline(context, new PdfWriterPipeline(document, writer))
+                    ),
+                    true
+            );
+            new XMLParser(true, worker, charset).parse(inputStream, charset);
+        }
+    }
+
+    /**
+     * 字体提供者：创建时注册系统字体目录（与 {@link XMLWorkerHelper} 默认行为一致，css 中的系统字体可用）和指定的字体，
+     * 未指定字体或字体未注册时使用第一个可用的字体，避免中文不显示
+     */
+    private static final class CjkFontProvider extends XMLWorkerFontProvider {
+        private String defaultFont;
+
+        private CjkFontProvider(final List<String> fonts) {
+            super(XMLWorkerFontProvider.DONTLOOKFORFONTS);
+            setUseUnicode(true);
+            registerDirectories();
+            for (String font : fonts) {
+                if (!isRegistered(font)) {
+                    try {
+                        register(font, font);
+                    } catch (Exception e) {
+                        log.debug("字体注册失败：{}，{}", font, e.getMessage());
+                        continue;
+                    }
+                }
+                if (Objects.isNull(defaultFont) && isRegistered(font)) {
+                    defaultFont = font;
+                }
+            }
+            if (Objects.isNull(defaultFont)) {
+                log.warn("没有可用的中文字体，中文将无法显示：{}", fonts);
+            } else {
+                log.info("html 转 pdf 默认字体：{}", defaultFont);
+            }
+        }
+
+        @Override
+        public Font getFont(final String fontname, final String encoding, final boolean embedded, final float size, final int style, final BaseColor color) {
+            if (Objects.nonNull(defaultFont) && (Objects.isNull(fontname) || !isRegistered(fontname))) {
+                return super.getFont(defaultFont, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, style, color);
+            }
+            return super.getFont(fontname, encoding, embedded, size, style, color);
+        }
+    }
 }
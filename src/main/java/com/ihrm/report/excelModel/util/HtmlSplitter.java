@@ -0,0 +1,260 @@
+package com.ihrm.report.excelModel.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * html 分块：在分页标记和长表格的行组处拆分成多个完整的 html，每块可独立转换为 pdf 后按顺序合并
+ * <pre>
+ * 分页标记：&lt;div style="page-break-after: always"&gt;&lt;/div&gt;（或 page-break-before），标记本身不保留
+ * 长表格：每 rows 行一块，每块重复 &lt;colgroup&gt; 和表头（&lt;thead&gt; 或只包含 &lt;th&gt; 的第一行），
+ *        &lt;caption&gt; 只保留在第一块，&lt;tfoot&gt; 只保留在最后一块；包含嵌套表格的表格不拆分，表格内的分页标记不拆分
+ * 拆分点在其他元素内部时（如 &lt;div class="wrap"&gt;&lt;table&gt;），每块末尾关闭这些元素，下一块开头按原标签重新打开，保留外层样式
+ * 每块保留原文档 &lt;body&gt; 之前和之后的内容（样式、脚本等）
+ * </pre>
+ * 跨行合并（rowspan）的单元格不能跨块，这类表格不适合分块；html 需要标签成对闭合（XHTML），注释、script、style 中的内容不拆分
+ */
+public final class HtmlSplitter {
+    private HtmlSplitter() {
+    }
+
+    private static final Pattern BODY_OPEN = Pattern.compile("<body\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BODY_CLOSE = Pattern.compile("</body\\s*>", Pattern.CASE_INSENSITIVE);
+    /**
+     * 标签：注释、script 和 style（整体跳过）、开始或结束标签
+     */
+    private static final Pattern TAG = Pattern.compile("<!--.*?-->|<(script|style)\\b[^>]*>.*?</\\1\\s*>|<(/?)([a-zA-Z][\\w:-]*)\\b[^>]*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PAGE_BREAK = Pattern.compile("<div\\b[^>]*page-break-(?:before|after)\\s*:\\s*always[^>]*>\\s*</div\\s*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE = Pattern.compile("<(/?)table\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_START = Pattern.compile("<table\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_OPEN = Pattern.compile("^<table\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CAPTION = Pattern.compile("<caption\\b.*?</caption\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern COLGROUP = Pattern.compile("<colgroup\\b.*?</colgroup\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern THEAD = Pattern.compile("<thead\\b.*?</thead\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TFOOT = Pattern.compile("<tfoot\\b.*?</tfoot\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ROW = Pattern.compile("<tr\\b.*?</tr\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CELL = Pattern.compile("<td\\b", Pattern.CASE_INSENSITIVE);
+    /**
+     * 不产生内容的标签：注释、除图片、水平线、表格之外的开始和结束标签
+     */
+    private static final Pattern BLANK_TAGS = Pattern.compile("<!--.*?-->|</?(?!(?:img|hr|table)\\b)[a-zA-Z][^>]*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    /**
+     * 没有结束标签的元素
+     */
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"
+    ));
+
+    /**
+     * 拆分 html
+     *
+     * @param html {@link String} html文件内容
+     * @param rows int 长表格每块的行数
+     * @return {@link List}{@link List<String>} 按顺序排列的完整 html；无法拆分时只有一个元素
+     */
+    public static List<String> split(final String html, final int rows) {
+        final Matcher open = BODY_OPEN.matcher(html);
+        final Matcher close = BODY_CLOSE.matcher(html);
+        final int start = open.find() ? open.end() : 0;
+        int end = html.length();
+        while (close.find()) {
+            end = close.start();
+        }
+        if (end < start) {
+            end = html.length();
+        }
+        final String prefix = html.substring(0, start);
+        final String suffix = html.substring(end);
+
+        final List<String> chunks = new ArrayList<>();
+        for (String body : splitBody(html.substring(start, end), rows)) {
+            chunks.add(prefix + body + suffix);
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(html);
+        }
+        return chunks;
+    }
+
+    /**
+     * 按分页标记和最外层表格拆分 body 内容，记录拆分点外层未关闭的元素，在拆分处关闭并在下一块重新打开
+     */
+    private static List<String> splitBody(final String body, final int rows) {
+        final Chunks chunks = new Chunks();
+        // 当前位置外层未关闭的元素：[标签名, 开始标签]
+        final Deque<String[]> stack = new ArrayDeque<>();
+        int position = 0;
+        final Matcher tag = TAG.matcher(body);
+        while (tag.find(position)) {
+            chunks.current.append(body, position, tag.start());
+            position = tag.end();
+            final String name = tag.group(3);
+            if (Objects.isNull(name)) {
+                // 注释、script、style
+                chunks.current.append(tag.group());
+                continue;
+            }
+            final String lower = name.toLowerCase();
+            if (!tag.group(2).isEmpty()) {
+                pop(stack, lower);
+                chunks.current.append(tag.group());
+                continue;
+            }
+            final Matcher pageBreak = PAGE_BREAK.matcher(body).region(tag.start(), body.length());
+            if (pageBreak.lookingAt()) {
+                chunks.cut(stack);
+                position = pageBreak.end();
+                continue;
+            }
+            if ("table".equals(lower)) {
+                final int tableEnd = tableEnd(body, tag.start());
+                if (tableEnd > 0) {
+                    final String table = body.substring(tag.start(), tableEnd);
+                    position = tableEnd;
+                    // 包含嵌套表格的表格不拆分
+                    final boolean nested = TABLE_START.matcher(table).region(1, table.length()).find();
+                    final List<String> parts = nested ? null : splitTable(table, rows);
+                    if (Objects.isNull(parts) || parts.size() < 2) {
+                        chunks.current.append(table);
+                        continue;
+                    }
+                    chunks.current.append(parts.get(0));
+                    for (int i = 1; i < parts.size(); i++) {
+                        chunks.cut(stack);
+                        chunks.current.append(parts.get(i));
+                    }
+                    continue;
+                }
+            }
+            chunks.current.append(tag.group());
+            if (!VOID_ELEMENTS.contains(lower) && !tag.group().endsWith("/>")) {
+                stack.push(new String[]{lower, tag.group()});
+            }
+        }
+        chunks.current.append(body.substring(position));
+        chunks.add();
+        return chunks.bodies;
+    }
+
+    /**
+     * 关闭最近一个同名元素，中间未关闭的元素一起出栈；没有同名元素时忽略
+     */
+    private static void pop(final Deque<String[]> stack, final String name) {
+        for (String[] element : stack) {
+            if (element[0].equals(name)) {
+                while (!stack.pop()[0].equals(name)) {
+                    // 未闭合的元素随外层元素一起关闭
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 与 start 处的 &lt;table&gt; 匹配的 &lt;/table&gt; 结束位置；没有匹配时返回 -1
+     */
+    private static int tableEnd(final String body, final int start) {
+        final Matcher matcher = TABLE.matcher(body);
+        int depth = 0;
+        int from = start;
+        while (matcher.find(from)) {
+            from = matcher.end();
+            depth += matcher.group(1).isEmpty() ? 1 : -1;
+            if (depth == 0) {
+                return matcher.end();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 拆分后的 body 内容
+     */
+    private static final class Chunks {
+        private final List<String> bodies = new ArrayList<>();
+        private StringBuilder current = new StringBuilder();
+        /**
+         * 在当前位置拆分：当前块关闭外层元素，下一块重新打开
+         */
+        private void cut(final Deque<String[]> stack) {
+            stack.forEach(element -> current.append("</").append(element[0]).append('>'));
+            add();
+            current = new StringBuilder();
+            stack.descendingIterator().forEachRemaining(element -> current.append(element[1]));
+        }
+
+        /**
+         * 保存当前块；只有空白和不产生内容的标签时丢弃（如分页标记前后只有外层元素）
+         */
+        private void add() {
+            if (!BLANK_TAGS.matcher(current).replaceAll("").trim().isEmpty()) {
+                bodies.add(current.toString());
+            }
+        }
+    }
+
+    /**
+     * 拆分单个表格
+     *
+     * @return 每块表格；无法拆分时返回 null
+     */
+    private static List<String> splitTable(final String table, final int rows) {
+        final Matcher open = TABLE_OPEN.matcher(table);
+        if (!open.find()) {
+            return null;
+        }
+        String inner = table.substring(open.end(), table.lastIndexOf('<'));
+        final String caption = first(CAPTION, inner);
+        final String thead = first(THEAD, inner);
+        final String tfoot = first(TFOOT, inner);
+        final StringBuilder colgroups = new StringBuilder();
+        final Matcher colgroup = COLGROUP.matcher(inner);
+        while (colgroup.find()) {
+            colgroups.append(colgroup.group());
+        }
+        inner = COLGROUP.matcher(TFOOT.matcher(THEAD.matcher(CAPTION.matcher(inner).replaceFirst("")).replaceFirst("")).replaceFirst("")).replaceAll("");
+
+        final List<String> trs = new ArrayList<>();
+        final Matcher row = ROW.matcher(inner);
+        while (row.find()) {
+            trs.add(row.group());
+        }
+        String header = thead;
+        if (header.isEmpty() && !trs.isEmpty() && !CELL.matcher(trs.get(0)).find()) {
+            // 没有 thead 时，只包含 th 的第一行作为表头
+            header = "<thead>" + trs.remove(0) + "</thead>";
+        }
+        if (trs.size() <= rows) {
+            return null;
+        }
+        final List<String> parts = new ArrayList<>();
+        for (int from = 0; from < trs.size(); from += rows) {
+            final StringBuilder part = new StringBuilder(open.group());
+            if (from == 0) {
+                part.append(caption);
+            }
+            part.append(colgroups).append(header).append("<tbody>");
+            trs.subList(from, Math.min(from + rows, trs.size())).forEach(part::append);
+            part.append("</tbody>");
+            if (from + rows >= trs.size()) {
+                part.append(tfoot);
+            }
+            parts.add(part.append("</table>").toString());
+        }
+        return parts;
+    }
+
+    private static String first(final Pattern pattern, final String text) {
+        final Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group() : "";
+    }
+}
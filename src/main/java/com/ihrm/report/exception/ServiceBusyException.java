@@ -0,0 +1,23 @@
+package com.ihrm.report.exception;
+
+/**
+ * 自定义异常: 服务繁忙，并发数和等待队列已满或等待超时，客户端应在 {@link #getRetryAfter()} 秒后重试
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议重试间隔（秒）
+     */
+    private final long retryAfter;
+
+    public ServiceBusyException(String msg, long retryAfter) {
+        super(msg);
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
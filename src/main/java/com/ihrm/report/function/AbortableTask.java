@@ -0,0 +1,335 @@
+package com.ihrm.report.function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * 可中止的异步下载：{@link WebAsyncTask} 超时或出错后，容器会结束请求并回收响应，任务不能再写入
+ * <pre>
+ * 中止时：标记已中止，中断执行线程，关闭任务中登记的资源（如 wkhtmltopdf 进程）；之后写入响应抛出 IOException，设置响应头被忽略
+ * 写入和中止互斥：中止返回后不会再有写入；正在阻塞的写入（客户端读取慢）结束后才能中止，最长为容器的写超时
+ * 中止后返回 {@link CallableProcessingInterceptor#RESULT_NONE}，由 Spring 按默认方式处理超时（503）
+ *
+ * return AbortableTask.of(timeout, executor, response, res -> {
+ *     // 只通过 res 写入响应
+ * });
+ * </pre>
+ */
+public class AbortableTask {
+
+    private static Logger logger = LoggerFactory.getLogger(AbortableTask.class);
+    private static final ThreadLocal<AbortableTask> CURRENT = new ThreadLocal<>();
+
+    private final Guarded response;
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private boolean aborted;
+    private Thread worker;
+
+    private AbortableTask(HttpServletResponse response) {
+        this.response = new Guarded(response);
+    }
+
+    /**
+     * 创建可中止的异步任务
+     *
+     * @param timeout  超时时间（毫秒）
+     * @param executor 执行线程池
+     * @param response response
+     * @param body     任务，只能通过参数中的 response 写入响应
+     * @return {@link WebAsyncTask}
+     */
+    @SuppressWarnings("unchecked")
+    public static WebAsyncTask<Void> of(long timeout, AsyncTaskExecutor executor, HttpServletResponse response, Body body) {
+        AbortableTask task = new AbortableTask(response);
+        WebAsyncTask<Void> webAsyncTask = new WebAsyncTask<>(timeout, executor, () -> {
+            task.run(body);
+            return null;
+        });
+        // 回调返回 RESULT_NONE 表示继续按默认方式处理，类型不是 Void，按擦除后的 Callable 传入
+        Callable<Object> abort = task::abort;
+        webAsyncTask.onTimeout((Callable<Void>) (Callable<?>) abort);
+        webAsyncTask.onError((Callable<Void>) (Callable<?>) abort);
+        return webAsyncTask;
+    }
+
+    /**
+     * 登记当前任务中止时需要关闭的资源，资源释放后调用 {@link #unregister(AutoCloseable)}；不在可中止任务中执行时忽略
+     *
+     * @param resource 资源
+     */
+    public static void register(AutoCloseable resource) {
+        AbortableTask task = CURRENT.get();
+        if (Objects.isNull(task)) {
+            return;
+        }
+        boolean close;
+        synchronized (task) {
+            close = task.aborted;
+            if (!close) {
+                task.resources.add(resource);
+            }
+        }
+        if (close) {
+            close(resource);
+        }
+    }
+
+    /**
+     * 取消登记
+     *
+     * @param resource 资源
+     */
+    public static void unregister(AutoCloseable resource) {
+        AbortableTask task = CURRENT.get();
+        if (Objects.nonNull(task)) {
+            synchronized (task) {
+                task.resources.remove(resource);
+            }
+        }
+    }
+
+    private void run(Body body) throws Exception {
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            worker = Thread.currentThread();
+        }
+        CURRENT.set(this);
+        try {
+            body.run(response);
+        } finally {
+            CURRENT.remove();
+            synchronized (this) {
+                worker = null;
+                resources.clear();
+                // 清除中止时的中断标记，线程归还线程池后不影响下一个任务
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private Object abort() {
+        List<AutoCloseable> closing;
+        synchronized (this) {
+            if (aborted) {
+                return CallableProcessingInterceptor.RESULT_NONE;
+            }
+            aborted = true;
+            if (Objects.nonNull(worker)) {
+                worker.interrupt();
+            }
+            closing = new ArrayList<>(resources);
+            resources.clear();
+        }
+        closing.forEach(AbortableTask::close);
+        return CallableProcessingInterceptor.RESULT_NONE;
+    }
+
+    private static void close(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.warn("中止时关闭资源失败", e);
+        }
+    }
+
+    private synchronized void check() throws IOException {
+        if (aborted) {
+            throw new IOException("请求已超时或已结束，停止写入");
+        }
+    }
+
+    @FunctionalInterface
+    public interface Body {
+        void run(HttpServletResponse response) throws Exception;
+    }
+
+    /**
+     * 中止后不再写入和修改响应
+     */
+    private class Guarded extends HttpServletResponseWrapper {
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private Guarded(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                if (Objects.isNull(outputStream)) {
+                    outputStream = new GuardedOutputStream(super.getOutputStream());
+                }
+                return outputStream;
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                if (Objects.isNull(writer)) {
+                    writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+                }
+                return writer;
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                super.sendError(sc, msg);
+            }
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                super.sendError(sc);
+            }
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.setStatus(sc);
+                }
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.setHeader(name, value);
+                }
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.addHeader(name, value);
+                }
+            }
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.setDateHeader(name, date);
+                }
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.setContentType(type);
+                }
+            }
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.setContentLength(len);
+                }
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            synchronized (AbortableTask.this) {
+                if (!aborted) {
+                    super.setContentLengthLong(len);
+                }
+            }
+        }
+    }
+
+    private class GuardedOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        private GuardedOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                delegate.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                delegate.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (AbortableTask.this) {
+                check();
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (AbortableTask.this) {
+                // 中止后由容器结束响应，不再关闭
+                if (!aborted) {
+                    delegate.close();
+                }
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
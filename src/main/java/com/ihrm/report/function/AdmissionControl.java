@@ -0,0 +1,135 @@
+package com.ihrm.report.function;
+
+import com.ihrm.report.exception.ServiceBusyException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 准入控制：限制同时执行的任务数，超出的请求在有界队列中等待，队列已满或等待超时时抛出 {@link ServiceBusyException}
+ * <pre>
+ * try (AdmissionControl.Permit permit = admission.acquire()) {
+ *     // 执行任务
+ * }
+ * </pre>
+ */
+public class AdmissionControl {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitMillis;
+    private final long retryAfter;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timeout = new AtomicLong();
+    private final AtomicLong waitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillisSeen = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong runMillis = new AtomicLong();
+    private final AtomicLong maxRunMillis = new AtomicLong();
+
+    /**
+     * @param name          名称，用于异常消息
+     * @param maxConcurrent 同时执行的任务数上限
+     * @param maxWaiting    等待队列长度上限
+     * @param maxWaitMillis 单个请求最长等待时间（毫秒）
+     * @param retryAfter    拒绝时建议客户端重试间隔（秒）
+     */
+    public AdmissionControl(String name, int maxConcurrent, int maxWaiting, long maxWaitMillis, long retryAfter) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 获取执行许可，使用完成后必须关闭
+     *
+     * @return {@link Permit}
+     * @throws ServiceBusyException 等待队列已满或等待超时
+     */
+    public Permit acquire() {
+        if (permits.tryAcquire()) {
+            admitted.incrementAndGet();
+            return new Permit();
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new ServiceBusyException(name + "繁忙，等待队列已满", retryAfter);
+        }
+        long start = System.currentTimeMillis();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeout.incrementAndGet();
+                throw new ServiceBusyException(name + "繁忙，等待超时", retryAfter);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(name + "等待被中断", retryAfter);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        long waited = System.currentTimeMillis() - start;
+        waitMillis.addAndGet(waited);
+        maxWaitMillisSeen.accumulateAndGet(waited, Math::max);
+        admitted.incrementAndGet();
+        return new Permit();
+    }
+
+    /**
+     * 统计：并发数、排队数、拒绝数、等待耗时、执行耗时
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("maxConcurrent", maxConcurrent);
+        map.put("active", maxConcurrent - permits.availablePermits());
+        map.put("queueDepth", waiting.get());
+        map.put("maxWaiting", maxWaiting);
+        map.put("admitted", admitted.get());
+        map.put("rejected", rejected.get());
+        map.put("timeout", timeout.get());
+        map.put("avgWaitMillis", admitted.get() == 0 ? 0 : waitMillis.get() / admitted.get());
+        map.put("maxWaitMillis", maxWaitMillisSeen.get());
+        map.put("completed", completed.get());
+        map.put("avgRunMillis", completed.get() == 0 ? 0 : runMillis.get() / completed.get());
+        map.put("maxRunMillis", maxRunMillis.get());
+        return map;
+    }
+
+    /**
+     * 执行许可，关闭时释放并记录执行耗时
+     */
+    public class Permit implements AutoCloseable {
+        private final long start = System.currentTimeMillis();
+        private boolean closed;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.currentTimeMillis() - start;
+            completed.incrementAndGet();
+            runMillis.addAndGet(elapsed);
+            maxRunMillis.accumulateAndGet(elapsed, Math::max);
+            permits.release();
+        }
+    }
+}
@@ -2,12 +2,29 @@ package com.ihrm.report.function;
 
 import org.apache.log4j.Logger;
 
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 
 public class FileUtil {
     private static Logger logger = Logger.getLogger(FileUtil.class);
+    /**
+     * Tomcat sendfile 请求属性
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
     /*
      * 创建文件目录
      * @Author wuhao
@@ -29,42 +46,223 @@ public class FileUtil {
         return is==true?"\t成功":"\t失败";
     }
 
-     /*
-      * 获取流文件，写入response
-      * @Author wuhao
-      * @Description //TODO
-      * @Date 17:45 2019/8/6
-      **/
-    public static void downloadPdf(HttpServletResponse response,String fileDir){
-        InputStream inputStream = null;
-        OutputStream os = null;
-        try {
-            response.setContentType("application/octet-stream; CHARSET=utf8");
-            response.addHeader("Content-transfer-Encoding", "binary");
-            response.setHeader("Content-Disposition", "attachment; filename=test.pdf");
-            inputStream = new FileInputStream(fileDir);
-            os = response.getOutputStream();
-            byte[] b = new byte[2048];
-            int length;
-            while ((length = inputStream.read(b)) > 0) {
-                os.write(b, 0, length);
+    /**
+     * 当前请求能否使用 sendfile：容器支持（Tomcat NIO/APR 且开启了 useSendfile）且不是异步请求；
+     * Tomcat 只在同步请求结束时处理 sendfile，异步请求（startAsync 后 complete 或 dispatch）设置后不会发送响应体
+     *
+     * @param request request
+     * @return boolean
+     */
+    public static boolean sendfileSupported(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && !request.isAsyncStarted()
+                && request.getDispatcherType() != DispatcherType.ASYNC;
+    }
+
+    /**
+     * 下载文件，不删除文件，用于多个请求共享的文件
+     * 当前请求能使用 sendfile 时（{@link #sendfileSupported}）由容器在请求结束后直接从文件发送，不经过 JVM 堆；
+     * 调用方必须保证文件在响应发送完成之前不会被删除或修改
+     *
+     * @see #download(HttpServletRequest, HttpServletResponse, File, String, String, String, Runnable)
+     */
+    public static void download(HttpServletRequest request, HttpServletResponse response, File file,
+                                String fileName, String contentType, String etag) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            download(request, response, channel, file.lastModified(), file, fileName, contentType, etag);
+        }
+    }
+
+    /**
+     * 下载文件，支持断点续传；文件在传输结束后可能被删除，所以不使用 sendfile，由当前线程复制到响应流
+     * <pre>
+     * Range: bytes=a-b / a- / -n       单个区间返回 206，无法满足返回 416，多个区间按整个文件返回
+     * If-Range                         与 ETag 或 Last-Modified 不一致时忽略 Range
+     * If-None-Match / If-Modified-Since 未修改返回 304
+     * </pre>
+     *
+     * @param request     request，为 null 时不处理条件请求和 Range
+     * @param response    response
+     * @param file        文件
+     * @param fileName    下载文件名
+     * @param contentType 文件类型
+     * @param etag        ETag，为 null 时按文件长度和修改时间生成
+     * @param cleanup     传输结束后执行（无论成功失败），如删除临时文件
+     */
+    public static void download(HttpServletRequest request, HttpServletResponse response, File file,
+                                String fileName, String contentType, String etag, Runnable cleanup) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            download(request, response, channel, file.lastModified(), null, fileName, contentType, etag);
+        } finally {
+            cleanup.run();
+        }
+    }
+
+    /**
+     * 下载已打开的文件，不使用 sendfile（文件可能已被删除），由当前线程复制到响应流；不关闭 channel
+     *
+     * @param channel     已打开的文件
+     * @see #download(HttpServletRequest, HttpServletResponse, File, String, String, String, Runnable)
+     */
+    public static void download(HttpServletRequest request, HttpServletResponse response, FileChannel channel,
+                                String fileName, String contentType, String etag) throws IOException {
+        download(request, response, channel, -1, null, fileName, contentType, etag);
+    }
+
+    /**
+     * 写入响应头；sendfile 不为 null 且当前请求能使用 sendfile 时交给容器发送，否则通过 {@link FileChannel#transferTo} 复制到响应流
+     * （目标不是 FileChannel / SocketChannel，JDK 在用户态按缓冲区复制）
+     *
+     * @param lastModified 文件修改时间（毫秒），小于 0 时不输出 Last-Modified
+     * @param sendfile     允许容器直接发送的文件，为 null 时不使用 sendfile
+     */
+    private static void download(HttpServletRequest request, HttpServletResponse response, FileChannel channel, long lastModified,
+                                 File sendfile, String fileName, String contentType, String etag) throws IOException {
+        long size = channel.size();
+        lastModified = lastModified < 0 ? -1 : lastModified / 1000 * 1000;
+        if (etag == null) {
+            etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+        response.setHeader("ETag", etag);
+        if (lastModified >= 0) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+        if (!response.containsHeader("Cache-Control")) {
+            response.setHeader("Cache-Control", "private, no-cache");
+        }
+        response.setHeader("Accept-Ranges", "bytes");
+        if (request != null && notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        long start = 0;
+        long end = size - 1;
+        String range = request == null ? null : request.getHeader("Range");
+        if (range != null && ifRange(request.getHeader("If-Range"), etag, lastModified)) {
+            long[] bounds = range(range, size);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }finally {
-            try {
-                os.close();
-                inputStream.close();
-                //将文件读取到流里面之后删除原文件
-                File file=new File(fileDir);
-                if(file.exists()){
-                    file.delete();
+        }
+        String encoded = URLEncoder.encode(fileName, "UTF-8").replace("+", "%20");
+        response.setContentType(contentType);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + encoded + "\"; filename*=UTF-8''" + encoded);
+        response.setContentLengthLong(end - start + 1);
+        if (request != null && "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (sendfile != null && request != null && sendfileSupported(request)) {
+            // 由容器调用 sendfile 从文件直接写入 socket，end 不包含
+            request.setAttribute(SENDFILE_FILENAME, sendfile.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        while (position <= end) {
+            position += channel.transferTo(position, end - position + 1, target);
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * If-None-Match 中任意一个 ETag（忽略弱校验前缀 W/）与当前 ETag 相同或为 * 时匹配；
+     * 没有 If-None-Match 时比较 If-Modified-Since
+     *
+     * @param request      request
+     * @param etag         当前 ETag
+     * @param lastModified 文件修改时间，-1 表示不比较
+     * @return 未修改返回true
+     */
+    public static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * If-Range 为 ETag 时必须完全一致（强校验），为日期时必须等于修改时间；没有 If-Range 时 Range 有效
+     */
+    static boolean ifRange(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() == lastModified;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析 Range
+     *
+     * @return 单个区间返回 [起始, 结束]；多个区间或格式不支持时返回空数组（按整个文件返回）；无法满足返回 null
+     */
+    static long[] range(String range, long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // bytes=-n 最后 n 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return null;
                 }
-            } catch (IOException e) {
-                os = null;
-                inputStream = null;
-                e.printStackTrace();
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start >= size || start > end) {
+                return null;
             }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
         }
     }
 }
@@ -1,28 +1,170 @@
 package com.ihrm.report.function;
 
-import java.io.BufferedReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 读取 wkhtmltopdf 的输出（标准错误），解析为进度事件，由 {@link ProcessSupervisor} 的共享线程池执行
+ * <pre>
+ * Loading pages (1/6)                      阶段
+ * [======>          ] 10%                  阶段内进度，进度条以 \r 刷新
+ * [==========] Page 1 of 3                 打印页数
+ * Warning: / Error: ...                    记录日志
+ * </pre>
+ */
+public class HtmlToPdfInterceptor implements Runnable {
 
+    private static Logger logger = LoggerFactory.getLogger(HtmlToPdfInterceptor.class);
+    private static final Pattern STAGE = Pattern.compile("^(.+?) \\((\\d+)/(\\d+)\\)$");
+    private static final Pattern PERCENT = Pattern.compile("\\]\\s*(\\d+)%$");
+    private static final Pattern PAGE = Pattern.compile("Page (\\d+) of (\\d+)$");
 
-public class HtmlToPdfInterceptor extends Thread {
-    private InputStream is;
+    private final InputStream is;
+    private final String name;
+    private final Consumer<Progress> listener;
+    private Progress progress = new Progress("Starting", 0, 0, 0, 0, 0);
 
-    public HtmlToPdfInterceptor(InputStream is) {
+    /**
+     * @param is       wkhtmltopdf 标准错误
+     * @param name     转换名称，用于日志
+     * @param listener 进度事件监听，在读取线程中回调
+     */
+    public HtmlToPdfInterceptor(InputStream is, String name, Consumer<Progress> listener) {
         this.is = is;
+        this.name = name;
+        this.listener = listener;
     }
 
+    @Override
     public void run() {
-        try {
-            InputStreamReader isr = new InputStreamReader(is, "utf-8");
-            BufferedReader br = new BufferedReader(isr);
-            String line = null;
-            while ((line = br.readLine()) != null) {
-                System.out.println(line.toString()); //输出内容
+        StringBuilder line = new StringBuilder();
+        try (Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[1024];
+            int length;
+            while ((length = reader.read(buffer)) != -1) {
+                for (int i = 0; i < length; i++) {
+                    char c = buffer[i];
+                    if (c == '\n' || c == '\r') {
+                        line(line.toString().trim());
+                        line.setLength(0);
+                    } else {
+                        line.append(c);
+                    }
+                }
             }
+            line(line.toString().trim());
         } catch (IOException e) {
-            e.printStackTrace();
+            // 进程被结束时流随之关闭
+            logger.debug("wkhtmltopdf 输出读取结束：{}，{}", name, e.getMessage());
+        }
+    }
+
+    private void line(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        Matcher matcher;
+        if ((matcher = STAGE.matcher(line)).find()) {
+            publish(new Progress(matcher.group(1), Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)), 0, 0, 0));
+        } else if ((matcher = PAGE.matcher(line)).find()) {
+            publish(progress.with(100, Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+        } else if ((matcher = PERCENT.matcher(line)).find()) {
+            publish(progress.with(Integer.parseInt(matcher.group(1)), progress.page, progress.pages));
+        } else if ("Done".equals(line)) {
+            publish(new Progress("Done", progress.steps, progress.steps, 100, progress.page, progress.pages));
+        } else if (line.startsWith("Warning:") || line.startsWith("Error:") || line.startsWith("Exit with code")) {
+            logger.warn("wkhtmltopdf {}：{}", name, line);
+        } else if (!line.startsWith("[")) {
+            logger.debug("wkhtmltopdf {}：{}", name, line);
+        }
+    }
+
+    private void publish(Progress progress) {
+        this.progress = progress;
+        if (logger.isDebugEnabled()) {
+            logger.debug("wkhtmltopdf {}：{}", name, progress);
+        }
+        listener.accept(progress);
+    }
+
+    /**
+     * 转换进度事件
+     */
+    public static class Progress {
+        private final String stage;
+        private final int step;
+        private final int steps;
+        private final int percent;
+        private final int page;
+        private final int pages;
+
+        private Progress(String stage, int step, int steps, int percent, int page, int pages) {
+            this.stage = stage;
+            this.step = step;
+            this.steps = steps;
+            this.percent = percent;
+            this.page = page;
+            this.pages = pages;
+        }
+
+        private Progress with(int percent, int page, int pages) {
+            return new Progress(stage, step, steps, percent, page, pages);
+        }
+
+        /**
+         * 阶段：Loading pages、Counting pages、Resolving links、Printing pages、Done 等
+         */
+        public String getStage() {
+            return stage;
+        }
+
+        /**
+         * 当前阶段序号，从 1 开始
+         */
+        public int getStep() {
+            return step;
+        }
+
+        /**
+         * 阶段总数
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * 当前阶段内进度百分比
+         */
+        public int getPercent() {
+            return percent;
+        }
+
+        /**
+         * 已打印页数
+         */
+        public int getPage() {
+            return page;
+        }
+
+        /**
+         * 总页数
+         */
+        public int getPages() {
+            return pages;
+        }
+
+        @Override
+        public String toString() {
+            return stage + " (" + step + "/" + steps + ") " + percent + "%" + (pages > 0 ? " page " + page + "/" + pages : "");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package com.ihrm.report.function;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * wkhtmltopdf 进程监管：共享线程池读取进程输出并解析进度，超过转换时限时强制结束进程
+ * <pre>
+ * try (ProcessSupervisor.Supervised proc = supervisor.start(command, false, "name")) {
+ *     proc.stdin() / proc.stdout()
+ *     proc.waitFor();
+ * }
+ * </pre>
+ * 不读取标准输出时合并到标准错误一起读取，每个进程只占用一个读取任务
+ */
+public class ProcessSupervisor {
+
+    private final long timeoutMillis;
+    private final ExecutorService drains;
+    private final ScheduledExecutorService killer;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong timeout = new AtomicLong();
+    private final Map<Long, Supervised> running = new ConcurrentHashMap<>();
+
+    /**
+     * @param name          名称，用于线程名
+     * @param drainThreads  读取输出的线程数，不小于同时运行的进程数
+     * @param timeoutMillis 单次转换时限（毫秒），超过后强制结束进程
+     */
+    public ProcessSupervisor(String name, int drainThreads, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.drains = Executors.newFixedThreadPool(drainThreads,
+                new ThreadFactoryBuilder().setNameFormat(name + "-drain-%d").setDaemon(true).build());
+        this.killer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat(name + "-killer").setDaemon(true).build());
+    }
+
+    /**
+     * 启动进程，使用完成后必须关闭；进度只记录在统计中
+     *
+     * @see #start(List, boolean, String, Consumer)
+     */
+    public Supervised start(List<String> command, boolean captureStdout, String name) throws IOException {
+        return start(command, captureStdout, name, progress -> {
+        });
+    }
+
+    /**
+     * 启动进程，使用完成后必须关闭
+     *
+     * @param command       命令
+     * @param captureStdout 调用方是否读取标准输出；否则标准输出合并到标准错误
+     * @param name          转换名称，用于日志和统计
+     * @param listener      {@link HtmlToPdfInterceptor.Progress} 进度事件监听，在读取线程中回调
+     * @return {@link Supervised}
+     * @throws IOException 进程启动失败
+     */
+    public Supervised start(List<String> command, boolean captureStdout, String name,
+                            Consumer<HtmlToPdfInterceptor.Progress> listener) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(!captureStdout).start();
+        started.incrementAndGet();
+        Supervised supervised = new Supervised(sequence.incrementAndGet(), process, name);
+        running.put(supervised.id, supervised);
+        supervised.deadline = killer.schedule(supervised::kill, timeoutMillis, TimeUnit.MILLISECONDS);
+        InputStream output = captureStdout ? process.getErrorStream() : process.getInputStream();
+        drains.execute(new HtmlToPdfInterceptor(output, name, progress -> {
+            supervised.progress = progress;
+            listener.accept(progress);
+        }));
+        // 在可中止的异步请求中启动时，请求超时后结束进程
+        AbortableTask.register(supervised);
+        return supervised;
+    }
+
+    /**
+     * 统计：启动数、超时结束数、运行中的进程及进度
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("started", started.get());
+        map.put("timeout", timeout.get());
+        map.put("timeoutMillis", timeoutMillis);
+        map.put("running", running.values().stream().map(Supervised::status).collect(Collectors.toList()));
+        return map;
+    }
+
+    public void shutdown() {
+        running.values().forEach(supervised -> supervised.process.destroyForcibly());
+        killer.shutdownNow();
+        drains.shutdownNow();
+    }
+
+    /**
+     * 监管中的进程，关闭时取消时限并结束仍在运行的进程
+     */
+    public class Supervised implements AutoCloseable {
+        private final long id;
+        private final Process process;
+        private final String name;
+        private final long startTime = System.currentTimeMillis();
+        private volatile ScheduledFuture<?> deadline;
+        private volatile boolean timedOut;
+        private volatile HtmlToPdfInterceptor.Progress progress;
+
+        private Supervised(long id, Process process, String name) {
+            this.id = id;
+            this.process = process;
+            this.name = name;
+        }
+
+        private void kill() {
+            if (process.isAlive()) {
+                timedOut = true;
+                timeout.incrementAndGet();
+                process.destroyForcibly();
+            }
+        }
+
+        public OutputStream stdin() {
+            return process.getOutputStream();
+        }
+
+        public InputStream stdout() {
+            return process.getInputStream();
+        }
+
+        /**
+         * 是否因超过转换时限被结束
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * 等待进程结束
+         *
+         * @return 退出码
+         * @throws IOException 超过转换时限或等待被中断
+         */
+        public int waitFor() throws IOException {
+            try {
+                int exitCode = process.waitFor();
+                if (timedOut) {
+                    throw new IOException("pdf 转换超时（" + timeoutMillis + "ms）：" + name);
+                }
+                return exitCode;
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("pdf 转换被中断：" + name, e);
+            }
+        }
+
+        private Map<String, Object> status() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("elapsedMillis", System.currentTimeMillis() - startTime);
+            map.put("progress", Objects.isNull(progress) ? null : progress.toString());
+            return map;
+        }
+
+        @Override
+        public void close() {
+            deadline.cancel(false);
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+            running.remove(id);
+            AbortableTask.unregister(this);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ihrm.report.function;
+
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带统计的交换文件虚拟化器：记录页面换出到磁盘的次数和写入交换文件的字节数
+ */
+public class SwapFileVirtualizer extends JRSwapFileVirtualizer {
+
+    private final AtomicLong pagedOut = new AtomicLong();
+    private final CountingSwapFile swapFile;
+
+    private SwapFileVirtualizer(int maxSize, CountingSwapFile swapFile) {
+        super(maxSize, swapFile, true);
+        this.swapFile = swapFile;
+    }
+
+    /**
+     * @param directory    交换文件目录
+     * @param maxSize      内存中最多保留的页数，超过后按 LRU 换出到交换文件
+     * @param blockSize    交换文件块大小（字节）
+     * @param minGrowCount 交换文件每次扩容的最少块数
+     * @return {@link SwapFileVirtualizer}
+     */
+    public static SwapFileVirtualizer of(String directory, int maxSize, int blockSize, int minGrowCount) {
+        return new SwapFileVirtualizer(maxSize, new CountingSwapFile(directory, blockSize, minGrowCount));
+    }
+
+    /**
+     * 父类 {@link net.sf.jasperreports.engine.fill.StoreVirtualizer} 在当前版本中声明为原始类型，重写时必须保持一致
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void pageOut(JRVirtualizable o) throws IOException {
+        super.pageOut(o);
+        pagedOut.incrementAndGet();
+    }
+
+    /**
+     * 页面换出到交换文件的次数（同一页可能多次换出）
+     */
+    public long getPagedOut() {
+        return pagedOut.get();
+    }
+
+    /**
+     * 写入交换文件的字节数
+     */
+    public long getSwapBytes() {
+        return swapFile.written.get();
+    }
+
+    private static class CountingSwapFile extends JRSwapFile {
+        private final AtomicLong written = new AtomicLong();
+
+        CountingSwapFile(String directory, int blockSize, int minGrowCount) {
+            super(directory, blockSize, minGrowCount);
+        }
+
+        @Override
+        public SwapHandle write(byte[] data) throws IOException {
+            SwapHandle handle = super.write(data);
+            written.addAndGet(data.length);
+            return handle;
+        }
+    }
+}
@@ -1,13 +1,34 @@
 package com.ihrm.report.service;
 
+import com.ihrm.report.excelModel.http.HttpClient;
+import com.ihrm.report.function.AdmissionControl;
 import com.ihrm.report.function.FileUtil;
-import com.ihrm.report.function.HtmlToPdfInterceptor;
+import com.ihrm.report.function.ProcessSupervisor;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class HtmlToPdfService {
@@ -17,6 +38,20 @@ public class HtmlToPdfService {
     public final  String pdfGeneratePath = this.getClass().getClassLoader().getResource("").getPath()+ File.separator+"cache"+File.separator;
 
 
+    /**
+     * 报表页面地址
+     */
+    private static final String VIEW_PATH = "/reportor/interfaceView/";
+    /**
+     * 等待其他请求转换同一报表时，在排队时间 + 转换时限之外多等待的时间（毫秒）
+     */
+    private static final long FLIGHT_WAIT_MARGIN_MILLIS = 5000;
+
+    @Autowired
+    private ReportViewRenderer reportViewRenderer;
+    @Autowired
+    private PdfFileCache pdfFileCache;
+
     // wkhtmltopdf在系统中的路径
    @Value("${pathConfig.toPdfTool}")
     private  String toPdfTool ;
@@ -27,55 +62,587 @@ public class HtmlToPdfService {
     @Value("${pathConfig.pdfHttpHeader}")
     private String pdfHttpHeader;
 
+    /**
+     * 同时运行的 wkhtmltopdf 进程数上限
+     */
+    @Value("${pdfConfig.maxProcesses}")
+    private int maxProcesses;
+    /**
+     * 等待队列长度上限，超过后直接拒绝
+     */
+    @Value("${pdfConfig.maxWaiting}")
+    private int maxWaiting;
+    /**
+     * 排队最长等待时间（毫秒），超时后拒绝
+     */
+    @Value("${pdfConfig.maxWaitMillis}")
+    private long maxWaitMillis;
+    /**
+     * 拒绝时建议客户端重试间隔（秒）
+     */
+    @Value("${pdfConfig.retryAfterSeconds}")
+    private long retryAfterSeconds;
+    /**
+     * 页面渲染完成后设置的 window.status，模板配置了 pdfConfig.view.windowStatus 时代替固定延迟
+     */
+    @Value("${pdfConfig.windowStatus}")
+    private String windowStatus;
+    /**
+     * 单次转换时限（秒），超过后强制结束 wkhtmltopdf 进程
+     */
+    @Value("${pdfConfig.timeoutSeconds}")
+    private long timeoutSeconds;
+
+    private AdmissionControl admission;
+    private ProcessSupervisor supervisor;
+    /**
+     * 进行中的转换；key：报表编码
+     */
+    private final Map<String, Flight> flights = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        admission = new AdmissionControl("pdf 转换", maxProcesses, maxWaiting, maxWaitMillis, retryAfterSeconds);
+        // 进程数由准入控制限制，每个进程只占用一个读取线程
+        supervisor = new ProcessSupervisor("wkhtmltopdf", maxProcesses, TimeUnit.SECONDS.toMillis(timeoutSeconds));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        supervisor.shutdown();
+    }
+
     /**
      * html转pdf
      *
      * @param srcPath  html路径，可以是硬盘上的路径，也可以是网络路径
      * @param applyCode pdf保存路径
      * @return 转换成功返回true
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
      */
     public  String convert(String srcPath, String applyCode) {
-        String fileDir = pdfGeneratePath+applyCode+File.separator;
-        FileUtil.createDir(fileDir);
-        //得到 文件夹的 绝对路径
-        fileDir = new File(fileDir).getAbsolutePath()+File.separator+applyCode+".pdf";
-        StringBuilder cmd = new StringBuilder();
+        return convert(Source.url(pdfHttpHeader + srcPath), applyCode);
+    }
+
+    /**
+     * 报表页面转pdf：页面在 JVM 内渲染后通过标准输入传给 wkhtmltopdf，不再回调本服务；没有页面模板时回退到 http 地址
+     *
+     * @param reportCoded 报表编码
+     * @param applyCode   pdf保存路径
+     * @return 转换成功返回pdf文件路径，失败返回null
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
+     */
+    public String convertView(String reportCoded, String applyCode) {
+        return convert(view(reportCoded), applyCode);
+    }
+
+    /**
+     * 渲染报表页面并计算页面数据指纹，用于缓存和 ETag；渲染结果可直接用于 {@link #share(Rendered)}
+     * <pre>
+     * 在 JVM 内渲染：指纹为 html 的 md5
+     * 回调 http 地址：按页面响应的 ETag / Last-Modified 计算，都没有时不缓存
+     * </pre>
+     *
+     * @param reportCoded 报表编码
+     * @return {@link Rendered}
+     */
+    public Rendered render(String reportCoded) {
+        Source source = view(reportCoded);
+        String fingerprint = Objects.nonNull(source.html)
+                ? DigestUtils.md5DigestAsHex(source.html)
+                : fingerprint(source.input);
+        return new Rendered(reportCoded, source, fingerprint);
+    }
+
+    /**
+     * 回调 http 地址时，发送 HEAD 请求获取页面的 ETag / Last-Modified
+     */
+    private static String fingerprint(String url) {
+        try (Response response = HttpClient.getInstance().getHttpClient()
+                .newCall(new Request.Builder().url(url).head().build())
+                .execute()) {
+            String etag = response.header(HttpHeaders.ETAG);
+            String lastModified = response.header(HttpHeaders.LAST_MODIFIED);
+            if (!response.isSuccessful() || (Objects.isNull(etag) && Objects.isNull(lastModified))) {
+                return null;
+            }
+            return DigestUtils.md5DigestAsHex((etag + "|" + lastModified).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("获取页面指纹失败：{}", url, e);
+            return null;
+        }
+    }
+
+    /**
+     * 报表页面转pdf，同一报表同时只转换一次：转换期间相同报表编码的请求等待并共享同一个结果文件，
+     * 文件按引用计数管理，最后一个使用者关闭后删除
+     *
+     * @param reportCoded 报表编码
+     * @return {@link Artifact} 使用完成后必须关闭
+     * @throws IOException 转换失败
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
+     */
+    public Artifact share(String reportCoded) throws IOException {
+        return share(render(reportCoded));
+    }
+
+    /**
+     * 报表页面转pdf：页面数据指纹不变时直接使用 {@link PdfFileCache} 中的结果；
+     * 否则同一报表同时只转换一次，转换期间相同报表、相同指纹的请求等待并共享同一个结果文件，
+     * 文件按引用计数管理，最后一个使用者关闭后删除，转换结果同时写入缓存
+     *
+     * @param rendered {@link Rendered} 渲染结果
+     * @return {@link Artifact} 使用完成后必须关闭
+     * @throws IOException 转换失败
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
+     */
+    public Artifact share(Rendered rendered) throws IOException {
+        String reportCoded = rendered.reportCoded;
+        Optional<Artifact> cached = cached(rendered);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        String key = reportCoded + "@" + rendered.fingerprint;
+        Flight flight;
+        boolean leader = false;
+        synchronized (flights) {
+            flight = flights.get(key);
+            if (Objects.isNull(flight)) {
+                flight = new Flight();
+                flights.put(key, flight);
+                leader = true;
+            }
+            flight.refs++;
+        }
+        if (leader) {
+            File file = null;
+            try {
+                String fileDir = convert(rendered.source, reportCoded);
+                if (Objects.isNull(fileDir)) {
+                    flight.result.completeExceptionally(new IOException("pdf 转换失败：" + reportCoded));
+                } else {
+                    file = new File(fileDir);
+                    if (rendered.isCacheable()) {
+                        pdfFileCache.put(reportCoded, rendered.fingerprint, file);
+                    }
+                    flight.result.complete(file);
+                }
+            } catch (Throwable e) {
+                // 任何异常都要结束本次转换，否则等待中的请求一直阻塞
+                flight.result.completeExceptionally(e);
+                release(flight, null);
+                if (Objects.nonNull(file) && file.exists() && !file.delete()) {
+                    logger.warn("pdf 文件删除失败：{}", file.getAbsolutePath());
+                }
+                throw e;
+            } finally {
+                // 转换结束后新的请求重新转换，已加入的请求继续共享本次结果
+                synchronized (flights) {
+                    flights.remove(key, flight);
+                }
+            }
+        }
+        try {
+            // 最长等待：排队时间 + 转换时限，转换进程超时后会被强制结束，正常情况下不会等到该时间
+            return new Artifact(flight, flight.result.get(maxWaitMillis + TimeUnit.SECONDS.toMillis(timeoutSeconds) + FLIGHT_WAIT_MARGIN_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            release(flight, null);
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 pdf 转换被中断：" + reportCoded, e);
+        } catch (TimeoutException e) {
+            release(flight, null);
+            throw new IOException("等待 pdf 转换超时：" + reportCoded, e);
+        } catch (ExecutionException e) {
+            release(flight, null);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 只查询 {@link PdfFileCache}，不转换；命中时文件被固定，关闭前不会被删除，可以交给容器 sendfile
+     *
+     * @param rendered {@link Rendered} 渲染结果
+     * @return {@link Optional}{@link Optional<Artifact>} 使用完成后必须关闭；没有页面数据指纹或未命中时为空
+     */
+    public Optional<Artifact> cached(Rendered rendered) {
+        if (!rendered.isCacheable()) {
+            return Optional.empty();
+        }
+        return pdfFileCache.get(rendered.reportCoded, rendered.fingerprint).map(Artifact::new);
+    }
+
+    private void release(Flight flight, File file) {
+        boolean last;
+        synchronized (flights) {
+            last = --flight.refs == 0;
+        }
+        if (last && Objects.nonNull(file) && file.exists() && !file.delete()) {
+            logger.warn("pdf 文件删除失败：{}", file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * html转pdf，wkhtmltopdf 输出到标准输出，边转换边写入输出流，不落盘
+     *
+     * @param srcPath html路径，可以是硬盘上的路径，也可以是网络路径
+     * @param os      {@link OutputStream} 输出流，不会关闭
+     * @return 写入的字节数
+     * @throws IOException 转换失败或写出失败（客户端断开）
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
+     */
+    public long convert(String srcPath, OutputStream os) throws IOException {
+        return convert(Source.url(pdfHttpHeader + srcPath), os);
+    }
+
+    /**
+     * 报表页面转pdf，页面在 JVM 内渲染，pdf 边转换边写入输出流
+     *
+     * @param reportCoded 报表编码
+     * @param os          {@link OutputStream} 输出流，不会关闭
+     * @return 写入的字节数
+     * @throws IOException 转换失败或写出失败（客户端断开）
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
+     */
+    public long convertView(String reportCoded, OutputStream os) throws IOException {
+        return convert(view(reportCoded), os);
+    }
+
+    /**
+     * 多个报表页面合并转换为一个pdf：只启动一次 wkhtmltopdf 进程，按顺序输出到同一个 pdf，边转换边写入输出流
+     * <pre>
+     * 在 JVM 内渲染的页面写入临时 html 文件作为输入（标准输入只能传一个页面），转换完成后删除
+     * </pre>
+     *
+     * @param reportCodeds 报表编码，按顺序合并
+     * @param os           {@link OutputStream} 输出流，不会关闭
+     * @return 写入的字节数
+     * @throws IOException 转换失败或写出失败（客户端断开）
+     * @throws com.ihrm.report.exception.ServiceBusyException 进程数已满且等待队列已满或等待超时
+     */
+    public long convertViews(List<String> reportCodeds, OutputStream os) throws IOException {
+        List<File> temps = new ArrayList<>();
+        try {
+            List<Source> sources = new ArrayList<>(reportCodeds.size());
+            for (String reportCoded : reportCodeds) {
+                Source source = view(reportCoded);
+                if (Objects.nonNull(source.html)) {
+                    File temp = File.createTempFile("report-", ".html");
+                    temps.add(temp);
+                    Files.write(temp.toPath(), source.html);
+                    source = Source.file(temp, source.windowStatus);
+                }
+                sources.add(source);
+            }
+            return convert(sources, os);
+        } finally {
+            for (File temp : temps) {
+                if (!temp.delete()) {
+                    logger.warn("临时文件删除失败：{}", temp.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * 转换统计：进程数、排队数、等待耗时、转换耗时、超时数、运行中的转换进度
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>(admission.metrics());
+        map.put("processes", supervisor.metrics());
+        return map;
+    }
+
+    private Source view(String reportCoded) {
+        return reportViewRenderer.render(reportCoded)
+                .map(html -> Source.html(html, reportViewRenderer.isWindowStatus()))
+                .orElseGet(() -> Source.url(pdfHttpHeader + VIEW_PATH + reportCoded));
+    }
+
+    // permit 只用于在结束时释放许可，不在代码块中引用
+    @SuppressWarnings("try")
+    private String convert(Source source, String applyCode) {
+        try (AdmissionControl.Permit permit = admission.acquire()) {
+            return execute(source, applyCode);
+        }
+    }
+
+    private long convert(Source source, OutputStream os) throws IOException {
+        return convert(Collections.singletonList(source), os);
+    }
+
+    // permit 只用于在结束时释放许可，不在代码块中引用；先结束进程再释放许可
+    @SuppressWarnings("try")
+    private long convert(List<Source> sources, OutputStream os) throws IOException {
+        try (AdmissionControl.Permit permit = admission.acquire();
+             ProcessSupervisor.Supervised proc = start(sources, "-")) {
+            long size = 0;
+            try (InputStream is = proc.stdout()) {
+                write(proc, sources);
+                byte[] buffer = new byte[8192];
+                int length;
+                while ((length = is.read(buffer)) != -1) {
+                    os.write(buffer, 0, length);
+                    size += length;
+                }
+            } catch (IOException e) {
+                // 客户端断开时结束进程（关闭时），不再继续转换；超时结束时由 waitFor 报告
+                if (!proc.isTimedOut()) {
+                    throw e;
+                }
+            }
+            int exitCode = proc.waitFor();
+            if (size == 0) {
+                throw new IOException("pdf 转换失败，wkhtmltopdf 退出码：" + exitCode + "，" + sources);
+            }
+            if (exitCode != 0) {
+                // 页面中部分资源加载失败时 wkhtmltopdf 仍会生成 pdf，但退出码为 1
+                logger.warn("wkhtmltopdf 退出码：{}，{}", exitCode, sources);
+            }
+            return size;
+        }
+    }
+
+    private ProcessSupervisor.Supervised start(List<Source> sources, String output) throws IOException {
+        return supervisor.start(command(sources, output), "-".equals(output), sources.toString());
+    }
+
+    /**
+     * 页面内容写入标准输入；wkhtmltopdf 读完标准输入后才开始输出，可以在读取输出前同步写入
+     */
+    private static void write(ProcessSupervisor.Supervised proc, List<Source> sources) throws IOException {
+        try (OutputStream stdin = proc.stdin()) {
+            for (Source source : sources) {
+                if (Objects.nonNull(source.html)) {
+                    stdin.write(source.html);
+                }
+            }
+        }
+    }
+
+    /**
+     * wkhtmltopdf 命令
+     *
+     * @param sources {@link Source} 页面来源，多个页面按顺序合并到同一个 pdf；最多一个来自标准输入
+     * @param output  pdf 保存路径，- 表示标准输出
+     * @return {@link List}
+     */
+    private List<String> command(List<Source> sources, String output) {
+        List<String> cmd = new ArrayList<>();
         if (System.getProperty("os.name").indexOf("Windows") == -1) {
             // 非windows 系统
             //toPdfTool = FileUtil.convertSystemFilePath("/home/ubuntu/wkhtmltox/bin/wkhtmltopdf");
         }
-        cmd.append(toPdfTool);
-        cmd.append(" ");
+        cmd.add(toPdfTool);
         /*if(flag){
-            cmd.append(" --page-height 550 ");//  --page-height <unitreal>  页面高度 (default unit millimeter)
+            cmd.add("--page-height"); cmd.add("550");//  --page-height <unitreal>  页面高度 (default unit millimeter)
         }else{
-            cmd.append(" --page-height 400 ");//  --page-height <unitreal>  页面高度 (default unit millimeter)
+            cmd.add("--page-height"); cmd.add("400");//  --page-height <unitreal>  页面高度 (default unit millimeter)
         }*/
-        cmd.append(" --page-width 300 ");// --page-width <unitreal>  页面宽度 (default unit millimeter)
-        cmd.append(" --javascript-delay 500 ");//延迟加载(单位 毫秒)
-        cmd.append(" --page-size A3"); // 设置纸张大小: A4, Letter, etc.
-        cmd.append(" --enable-javascript ");//允许js加载
-        cmd.append(" --no-stop-slow-scripts ");//允许慢js加载
-        //cmd.append(" --no-background "); //不打印背景
-        cmd.append(pdfHttpHeader+srcPath);
-        cmd.append(" ");
-        cmd.append(fileDir);
+        cmd.add("--page-width");// --page-width <unitreal>  页面宽度 (default unit millimeter)
+        cmd.add("300");
+        if (sources.stream().anyMatch(Source::isUrl)) {
+            // 回调 http 地址时页面数据由 js 异步加载，固定等待
+            cmd.add("--javascript-delay");//延迟加载(单位 毫秒)
+            cmd.add("500");
+        } else if (sources.stream().allMatch(source -> source.windowStatus)) {
+            // 页面脚本执行完成后设置 window.status，wkhtmltopdf 等到该状态后立即开始打印
+            cmd.add("--window-status");
+            cmd.add(windowStatus);
+        }
+        cmd.add("--page-size"); // 设置纸张大小: A4, Letter, etc.
+        cmd.add("A3");
+        cmd.add("--enable-javascript");//允许js加载
+        cmd.add("--no-stop-slow-scripts");//允许慢js加载
+        //cmd.add("--no-background"); //不打印背景
+        sources.forEach(source -> cmd.add(source.input));
+        cmd.add(output);
+        return cmd;
+    }
 
-        try {
-            Process proc = Runtime.getRuntime().exec(cmd.toString());
-            HtmlToPdfInterceptor error = new HtmlToPdfInterceptor(proc.getErrorStream());
-            HtmlToPdfInterceptor output = new HtmlToPdfInterceptor(proc.getInputStream());
-            error.start();
-            output.start();
+    private String execute(Source source, String applyCode) {
+        String fileDir = pdfGeneratePath+applyCode+File.separator;
+        FileUtil.createDir(fileDir);
+        //得到 文件夹的 绝对路径；文件名唯一，同一报表同时转换时不会互相覆盖或删除
+        fileDir = new File(fileDir).getAbsolutePath()+File.separator+applyCode+"-"+UUID.randomUUID().toString().replace("-", "")+".pdf";
+
+        List<Source> sources = Collections.singletonList(source);
+        try (ProcessSupervisor.Supervised proc = start(sources, fileDir)) {
+            write(proc, sources);
             // 等待程序执行结束并输出状态
-            int exitCode =  proc.waitFor();
-        } catch (Exception e) {
-            fileDir=null;
-            e.printStackTrace();
+            int exitCode = proc.waitFor();
+            if (!new File(fileDir).isFile()) {
+                logger.error("pdf 转换失败，wkhtmltopdf 退出码：{}，{}", exitCode, source);
+                fileDir = null;
+            }
+        } catch (IOException e) {
+            logger.error("pdf 转换失败：{}", source, e);
+            new File(fileDir).delete();
+            fileDir = null;
         }
 
         return fileDir;
     }
 
+    /**
+     * 进行中的转换
+     */
+    private static class Flight {
+        private final CompletableFuture<File> result = new CompletableFuture<>();
+        /**
+         * 共享结果的请求数，由 flights 锁保护
+         */
+        private int refs;
+    }
+
+    /**
+     * 渲染结果：页面来源和页面数据指纹
+     */
+    public static class Rendered {
+        private final String reportCoded;
+        private final Source source;
+        private final String fingerprint;
+
+        private Rendered(String reportCoded, Source source, String fingerprint) {
+            this.reportCoded = reportCoded;
+            this.source = source;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * 是否有页面数据指纹，没有时不缓存
+         */
+        public boolean isCacheable() {
+            return Objects.nonNull(fingerprint);
+        }
+
+        /**
+         * 响应头 ETag，没有页面数据指纹时为 null
+         */
+        public String getEtag() {
+            return isCacheable() ? "\"" + fingerprint + "\"" : null;
+        }
+    }
+
+    /**
+     * 共享的转换结果，关闭时引用计数减一，最后一个使用者关闭后删除文件；来自缓存时关闭只释放固定，文件由缓存管理
+     */
+    public class Artifact implements AutoCloseable {
+        private final Flight flight;
+        private final PdfFileCache.Pin pin;
+        private final File file;
+        private FileChannel channel;
+        private boolean closed;
+
+        private Artifact(Flight flight, File file) {
+            this.flight = flight;
+            this.pin = null;
+            this.file = file;
+        }
+
+        private Artifact(PdfFileCache.Pin pin) {
+            this.flight = null;
+            this.pin = pin;
+            this.file = pin.getFile();
+        }
+
+        /**
+         * 来自缓存的文件：关闭后仍会保留一段时间才删除，可以交给容器 sendfile 在请求结束后发送；
+         * 本次转换的结果在最后一个使用者关闭后立即删除，不能用于 sendfile
+         *
+         * @return {@link Optional}{@link Optional<File>} 不是来自缓存时为空
+         */
+        public Optional<File> cachedFile() {
+            return Optional.ofNullable(pin).map(PdfFileCache.Pin::getFile);
+        }
+
+        /**
+         * 打开的 pdf 文件，关闭 {@link Artifact} 时一起关闭
+         *
+         * @return {@link FileChannel}
+         * @throws IOException 打开失败
+         */
+        public FileChannel channel() throws IOException {
+            if (Objects.isNull(channel)) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (Objects.nonNull(channel)) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("pdf 文件关闭失败", e);
+                }
+            }
+            if (Objects.nonNull(flight)) {
+                release(flight, file);
+            }
+            if (Objects.nonNull(pin)) {
+                pin.close();
+            }
+        }
+    }
+
+    /**
+     * 页面来源：http 地址、在 JVM 内渲染后通过标准输入传入的 html，或渲染后写入的临时文件
+     */
+    private static class Source {
+        /**
+         * wkhtmltopdf 输入参数：http 地址或 -（标准输入）
+         */
+        private final String input;
+        /**
+         * 通过标准输入传入的 html
+         */
+        private final byte[] html;
+        /**
+         * 页面是否会设置 window.status 通知渲染完成
+         */
+        private final boolean windowStatus;
+
+        private Source(String input, byte[] html, boolean windowStatus) {
+            this.input = input;
+            this.html = html;
+            this.windowStatus = windowStatus;
+        }
+
+        static Source url(String url) {
+            return new Source(url, null, false);
+        }
+
+        static Source html(String html, boolean windowStatus) {
+            return new Source("-", html.getBytes(StandardCharsets.UTF_8), windowStatus);
+        }
+
+        static Source file(File file, boolean windowStatus) {
+            return new Source(file.getAbsolutePath(), null, windowStatus);
+        }
+
+        /**
+         * 是否回调 http 地址
+         */
+        boolean isUrl() {
+            return input.startsWith("http://") || input.startsWith("https://");
+        }
 
+        @Override
+        public String toString() {
+            return Objects.isNull(html) ? input : "stdin(" + html.length + " bytes)";
+        }
+    }
 }
@@ -0,0 +1,179 @@
+package com.ihrm.report.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ihrm.report.enums.ReportFormat;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Jasper 报表批量导出：同一模板按多组参数并发填充，每完成一份立即写入 zip 输出流，不生成临时文件
+ * <pre>
+ * 同时在内存中的报表份数不超过并发数，导出顺序为完成顺序
+ * 单份报表失败不影响其他报表，失败信息写入 zip 中的 errors.txt
+ * </pre>
+ */
+@Component
+public class JasperBatchService {
+
+    private static Logger logger = LoggerFactory.getLogger(JasperBatchService.class);
+    /**
+     * 参数中指定 zip 内文件名（不含后缀）的参数名
+     */
+    public static final String FILE_NAME = "fileName";
+
+    @Autowired
+    private JasperReportService jasperReportService;
+
+    /**
+     * 批量导出线程数，所有批量请求共享
+     */
+    @Value("${jasperConfig.batch.threads}")
+    private int threads;
+    /**
+     * 单个批量请求的最大并发数
+     */
+    @Value("${jasperConfig.batch.parallelism}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("jasper-batch-%d").build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 批量导出，写入 zip 输出流
+     *
+     * @param name        模板名称
+     * @param format      {@link ReportFormat} 导出格式
+     * @param items       每份报表的请求参数，按模板中声明的参数类型转换；{@link #FILE_NAME} 指定文件名
+     * @param parallelism 并发数，不超过配置的最大并发数；为 null 时使用最大并发数
+     * @param os          {@link OutputStream} 输出流，不会关闭
+     * @return 成功导出的份数
+     */
+    public int export(String name, ReportFormat format, List<Map<String, String>> items, Integer parallelism, OutputStream os) throws IOException {
+        int window = Math.max(1, Math.min(Objects.isNull(parallelism) ? this.parallelism : parallelism, this.parallelism));
+        // 参数类型错误时在写出任何内容之前失败
+        List<Map<String, Object>> parameters = new ArrayList<>(items.size());
+        for (Map<String, String> item : items) {
+            parameters.add(jasperReportService.parameters(name, item));
+        }
+        CompletionService<Entry> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Entry>> futures = new ArrayList<>(items.size());
+        Set<String> entryNames = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        int submitted = 0;
+        int exported = 0;
+        ZipOutputStream zos = new ZipOutputStream(os, StandardCharsets.UTF_8);
+        try {
+            for (; submitted < Math.min(window, items.size()); submitted++) {
+                futures.add(completion.submit(task(name, format, items.get(submitted), parameters.get(submitted), submitted)));
+            }
+            for (int done = 0; done < items.size(); done++) {
+                Entry entry;
+                try {
+                    entry = completion.take().get();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof BatchException)) {
+                        throw new IOException("批量导出失败：" + name, e.getCause());
+                    }
+                    BatchException cause = (BatchException) e.getCause();
+                    logger.error("批量导出失败：{} 第 {} 份", name, cause.index + 1, cause.getCause());
+                    errors.add((cause.index + 1) + "\t" + cause.getCause().getMessage());
+                    entry = null;
+                }
+                // 每完成一份提交下一份，保证内存中的报表份数不超过并发数
+                if (submitted < items.size()) {
+                    futures.add(completion.submit(task(name, format, items.get(submitted), parameters.get(submitted), submitted)));
+                    submitted++;
+                }
+                if (Objects.nonNull(entry)) {
+                    zos.putNextEntry(new ZipEntry(unique(entryNames, entry.name, format.extension())));
+                    zos.write(entry.bytes);
+                    zos.closeEntry();
+                    zos.flush();
+                    exported++;
+                }
+            }
+            if (!errors.isEmpty()) {
+                zos.putNextEntry(new ZipEntry("errors.txt"));
+                zos.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+            zos.finish();
+            zos.flush();
+            return exported;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量导出被中断", e);
+        } finally {
+            // 客户端断开或中断时取消尚未完成的报表
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Callable<Entry> task(String name, ReportFormat format, Map<String, String> item, Map<String, Object> parameters, int index) {
+        String entryName = StringUtils.hasText(item.get(FILE_NAME))
+                ? item.get(FILE_NAME).replaceAll("[\\\\/:*?\"<>|]", "_")
+                : String.format("%s-%05d", name, index + 1);
+        return () -> {
+            try (JasperReportService.Filled filled = jasperReportService.fill(name, parameters, new JREmptyDataSource(), null)) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                format.export(filled.getPrint(), bos);
+                return new Entry(entryName, bos.toByteArray());
+            } catch (Exception e) {
+                throw new BatchException(index, e);
+            }
+        };
+    }
+
+    private static String unique(Set<String> names, String name, String extension) {
+        String entryName = name + extension;
+        for (int i = 1; !names.add(entryName); i++) {
+            entryName = name + "(" + i + ")" + extension;
+        }
+        return entryName;
+    }
+
+    private static class Entry {
+        private final String name;
+        private final byte[] bytes;
+
+        private Entry(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+    }
+
+    private static class BatchException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int index;
+
+        private BatchException(int index, Exception cause) {
+            super(cause);
+            this.index = index;
+        }
+    }
+}
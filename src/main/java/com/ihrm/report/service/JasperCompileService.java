@@ -0,0 +1,156 @@
+package com.ihrm.report.service;
+
+import com.ihrm.report.excelModel.util.ThreadPool;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * jrxml 模板编译：启动时在 {@link ThreadPool#multi()} 上并行编译 classpath:templates/*.jrxml，
+ * 编译产物按内容 hash 命名存放在磁盘上，重启或滚动发布时内容未变化的模板直接复用，不再重复编译
+ */
+@Component
+public class JasperCompileService {
+
+    private static Logger logger = LoggerFactory.getLogger(JasperCompileService.class);
+    /**
+     * 模板在 classpath 下的目录
+     */
+    private static final String TEMPLATE_DIR = "templates/";
+    /**
+     * 编译结果与 jasperreports 版本相关，版本号参与 hash 计算
+     */
+    private static final String ENGINE_VERSION = Objects.toString(JasperCompileManager.class.getPackage().getImplementationVersion(), "");
+
+    /**
+     * 编译产物存放目录
+     */
+    @Value("${jasperConfig.compiledPath}")
+    private String compiledPath;
+
+    private final ConcurrentHashMap<String, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时并行编译全部 jrxml 模板，编译完成之后才对外提供服务
+     */
+    @PostConstruct
+    public void compileAll() throws IOException {
+        Resource[] sources = new PathMatchingResourcePatternResolver().getResources("classpath*:" + TEMPLATE_DIR + "*.jrxml");
+        if (sources.length == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Callable<Compiled>> tasks = new ArrayList<>();
+        for (Resource source : sources) {
+            String name = source.getFilename().replaceAll("\\.jrxml$", "");
+            tasks.add(() -> compiled.computeIfAbsent(name, key -> compile(key, source)));
+        }
+        for (Future<Compiled> future : ThreadPool.multi().invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                // 单个模板编译失败不影响启动，请求该模板时会再次编译并抛出异常
+                logger.error("报表模板编译失败", e);
+            }
+        }
+        logger.info("jrxml 模板编译完成，共 {} 个，耗时：{}ms", sources.length, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 获取 jrxml 模板编译后的 .jasper 文件；模板源文件修改后重新编译
+     *
+     * @param name 模板名称，不带后缀
+     * @return {@link Optional}{@link Optional<File>} 不存在 jrxml 源文件时返回 empty
+     */
+    public Optional<File> compiled(String name) {
+        Resource source = new ClassPathResource(TEMPLATE_DIR + name + ".jrxml");
+        if (!source.exists()) {
+            return Optional.empty();
+        }
+        long lastModified = lastModified(source);
+        Compiled current = compiled.get(name);
+        if (Objects.isNull(current) || current.lastModified != lastModified) {
+            current = compiled.compute(name, (key, cached) ->
+                    Objects.nonNull(cached) && cached.lastModified == lastModified ? cached : compile(key, source)
+            );
+        }
+        return Optional.of(current.file);
+    }
+
+    /**
+     * 编译模板，内容 hash 对应的产物已存在时直接复用
+     */
+    private Compiled compile(String name, Resource source) {
+        long lastModified = lastModified(source);
+        try (InputStream is = source.getInputStream()) {
+            byte[] bytes = StreamUtils.copyToByteArray(is);
+            File dir = new File(compiledPath);
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("编译目录创建失败：" + dir.getAbsolutePath());
+            }
+            ByteArrayOutputStream hashSource = new ByteArrayOutputStream(bytes.length + 16);
+            hashSource.write(ENGINE_VERSION.getBytes(StandardCharsets.UTF_8));
+            hashSource.write(bytes);
+            File file = new File(dir, DigestUtils.md5DigestAsHex(hashSource.toByteArray()) + ".jasper");
+            if (file.exists()) {
+                logger.info("复用已编译模板：{} -> {}", name, file.getName());
+                return new Compiled(file, lastModified);
+            }
+            long start = System.currentTimeMillis();
+            // 先写临时文件再原子移动，避免多个实例同时编译时读到不完整的文件
+            File temp = File.createTempFile(name, ".jasper.tmp", dir);
+            try {
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(temp))) {
+                    JasperCompileManager.compileReportToStream(new ByteArrayInputStream(bytes), os);
+                }
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+            logger.info("编译模板：{} -> {}，耗时：{}ms", name, file.getName(), System.currentTimeMillis() - start);
+            return new Compiled(file, lastModified);
+        } catch (IOException | JRException e) {
+            throw new IllegalStateException("报表模板编译失败：" + name, e);
+        }
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static class Compiled {
+        private final File file;
+        private final long lastModified;
+
+        Compiled(File file, long lastModified) {
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ihrm.report.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 已填充报表 {@link JasperPrint} 缓存：相同模板 + 相同参数的报表只填充一次，多次导出（如先预览 PDF 再下载 Excel）直接使用缓存
+ * <pre>
+ * key：模板唯一标识 + 规范化参数的 md5
+ * value：序列化并压缩后的 JasperPrint
+ * 按字节数上限近似 LRU 淘汰，写入后超过 TTL 过期
+ * 同一 key 同时未命中时只有一个调用方填充，其余调用方等待后读取缓存
+ * </pre>
+ */
+@Component
+public class JasperPrintCache {
+
+    private static Logger logger = LoggerFactory.getLogger(JasperPrintCache.class);
+
+    /**
+     * 缓存字节数上限
+     */
+    @Value("${jasperConfig.printCache.maxBytes}")
+    private long maxBytes;
+    /**
+     * 缓存有效期（秒）
+     */
+    @Value("${jasperConfig.printCache.ttlSeconds}")
+    private long ttlSeconds;
+    /**
+     * 等待其他请求填充同一报表的最长时间（秒），超时后自行填充
+     */
+    @Value("${jasperConfig.printCache.loadWaitSeconds:120}")
+    private long loadWaitSeconds;
+
+    private Cache<String, byte[]> cache;
+    /**
+     * 正在填充的 key，填充完成后 countDown 唤醒等待方
+     */
+    private final ConcurrentHashMap<String, CountDownLatch> loading = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                // Guava 按 segment 平分 maximumWeight，只用一个 segment 才能让单个报表用满 maxBytes 且按全局 LRU 淘汰
+                .concurrencyLevel(1)
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] value) -> value.length)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 生成缓存 key
+     *
+     * @param templateId 模板唯一标识 {@link JasperTemplateService.Template#getId()}
+     * @param parameters 报表参数
+     * @return String
+     */
+    public String key(String templateId, Map<String, Object> parameters) {
+        StringBuilder canonical = new StringBuilder();
+        new TreeMap<>(parameters).forEach((name, value) -> canonical
+                .append(name).append('=')
+                .append(Objects.isNull(value) ? "null" : value.getClass().getName() + ":" + value)
+                .append('\n'));
+        return templateId + ":" + DigestUtils.md5DigestAsHex(canonical.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 获取缓存的报表
+     *
+     * @param key {@link #key(String, Map)}
+     * @return {@link Optional}{@link Optional<JasperPrint>}
+     */
+    public Optional<JasperPrint> get(String key) {
+        byte[] bytes = cache.getIfPresent(key);
+        if (Objects.isNull(bytes)) {
+            return Optional.empty();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            return Optional.of((JasperPrint) ois.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            logger.warn("报表缓存读取失败：{}", key, e);
+            cache.invalidate(key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 缓存报表
+     *
+     * @param key   {@link #key(String, Map)}
+     * @param print {@link JasperPrint} 未使用虚拟化器的报表
+     */
+    public void put(String key, JasperPrint print) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new DeflaterOutputStream(bos, new Deflater(Deflater.BEST_SPEED)))) {
+            oos.writeObject(print);
+        } catch (IOException e) {
+            logger.warn("报表缓存写入失败：{}", key, e);
+            return;
+        }
+        if (bos.size() > maxBytes) {
+            return;
+        }
+        cache.put(key, bos.toByteArray());
+    }
+
+    /**
+     * 单飞加载：先读缓存，未命中时同一 key 只有一个调用方执行 loader，其余调用方等待其完成后重新读取缓存；
+     * loader 的结果没有写入缓存（如使用了虚拟化器、超过字节上限）或等待超时时，等待方自行执行 loader
+     *
+     * @param key    {@link #key(String, Map)}
+     * @param cached 命中缓存时的处理
+     * @param loader 未命中时的填充，负责调用 {@link #put(String, JasperPrint)}
+     * @return T
+     */
+    public <T> T load(String key, Function<JasperPrint, T> cached, Loader<T> loader) throws JRException {
+        Optional<JasperPrint> print = get(key);
+        if (print.isPresent()) {
+            return cached.apply(print.get());
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch running = loading.putIfAbsent(key, latch);
+        if (Objects.isNull(running)) {
+            try {
+                return loader.load();
+            } finally {
+                loading.remove(key, latch);
+                latch.countDown();
+            }
+        }
+        try {
+            if (running.await(loadWaitSeconds, TimeUnit.SECONDS)) {
+                print = get(key);
+                if (print.isPresent()) {
+                    return cached.apply(print.get());
+                }
+            } else {
+                logger.warn("等待报表填充超时，自行填充：{}", key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JRException("等待报表填充被中断：" + key, e);
+        }
+        return loader.load();
+    }
+
+    /**
+     * 缓存统计：命中数、未命中数、淘汰数、条目数、占用字节数
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        map.put("size", cache.size());
+        map.put("bytes", cache.asMap().values().stream().mapToLong(value -> value.length).sum());
+        return map;
+    }
+
+    /**
+     * 未命中缓存时的填充
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws JRException;
+    }
+}
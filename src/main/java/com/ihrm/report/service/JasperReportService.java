@@ -0,0 +1,267 @@
+package com.ihrm.report.service;
+
+import com.ihrm.report.excelModel.util.Dates;
+import com.ihrm.report.function.FileUtil;
+import com.ihrm.report.function.SwapFileVirtualizer;
+import net.sf.jasperreports.engine.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Jasper 报表填充：从模板注册表获取模板，按预估页数或请求参数决定是否启用交换文件虚拟化器
+ */
+@Component
+public class JasperReportService {
+
+    private static Logger logger = LoggerFactory.getLogger(JasperReportService.class);
+    private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+
+    @Autowired
+    private JasperTemplateService jasperTemplateService;
+    @Autowired
+    private JasperPrintCache jasperPrintCache;
+
+    /**
+     * 虚拟化器交换文件目录
+     */
+    @Value("${jasperConfig.virtualizer.swapPath}")
+    private String swapPath;
+    /**
+     * 预估页数达到该值时自动启用虚拟化器
+     */
+    @Value("${jasperConfig.virtualizer.pageThreshold}")
+    private int pageThreshold;
+    /**
+     * 模板没有填充记录（首次填充）时是否启用虚拟化器
+     */
+    @Value("${jasperConfig.virtualizer.unknownSize:true}")
+    private boolean unknownSize;
+    /**
+     * 启用虚拟化器时内存中最多保留的页数
+     */
+    @Value("${jasperConfig.virtualizer.maxSize}")
+    private int maxSize;
+    /**
+     * 交换文件块大小（字节）
+     */
+    @Value("${jasperConfig.virtualizer.blockSize}")
+    private int blockSize;
+    /**
+     * 交换文件每次扩容的最少块数
+     */
+    @Value("${jasperConfig.virtualizer.minGrowCount}")
+    private int minGrowCount;
+
+    /**
+     * 模板最近一次填充的页数，作为下次填充的预估页数；key：模板唯一标识
+     */
+    private final ConcurrentHashMap<String, Integer> pageCounts = new ConcurrentHashMap<>();
+    private final AtomicLong virtualizedFills = new AtomicLong();
+    private final AtomicLong pagedOut = new AtomicLong();
+    private final AtomicLong swapBytes = new AtomicLong();
+
+    /**
+     * 启动时清理上次异常退出遗留的交换文件
+     */
+    @PostConstruct
+    public void init() {
+        File dir = new File(swapPath);
+        FileUtil.createDir(dir.getAbsolutePath());
+        File[] files = dir.listFiles();
+        if (Objects.nonNull(files)) {
+            for (File file : files) {
+                if (file.isFile() && !file.delete()) {
+                    logger.warn("交换文件删除失败：{}", file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /**
+     * 填充报表
+     *
+     * @param name       模板名称
+     * @param parameters 报表参数
+     * @param dataSource 数据源
+     * @param virtualize 是否启用虚拟化器；为 null 时按模板预估页数自动判断
+     * @return {@link Filled} 使用完成后必须关闭，释放交换文件
+     */
+    public Filled fill(String name, Map<String, Object> parameters, JRDataSource dataSource, Boolean virtualize) throws JRException {
+        JasperTemplateService.Template template = jasperTemplateService.get(name);
+        boolean enabled = Objects.nonNull(virtualize) ? virtualize : estimate(template.getId());
+        Map<String, Object> params = new HashMap<>(parameters);
+        SwapFileVirtualizer virtualizer = null;
+        if (enabled) {
+            virtualizer = SwapFileVirtualizer.of(new File(swapPath).getAbsolutePath(), maxSize, blockSize, minGrowCount);
+            params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        try {
+            JasperPrint print = JasperFillManager.fillReport(template.getReport(), params, dataSource);
+            pageCounts.put(template.getId(), print.getPages().size());
+            if (Objects.nonNull(virtualizer)) {
+                // 填充完成后设为只读，导出时只换入不再换出
+                virtualizer.setReadOnly(true);
+            }
+            return new Filled(name, print, virtualizer, false);
+        } catch (JRException | RuntimeException e) {
+            if (Objects.nonNull(virtualizer)) {
+                virtualizer.cleanup();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 按模板上次填充的页数判断是否启用虚拟化器；首次填充无法预估页数，按 {@link #unknownSize} 处理，
+     * 避免大报表第一次填充就在内存中展开全部页
+     *
+     * @param id 模板唯一标识
+     * @return 是否启用虚拟化器
+     */
+    private boolean estimate(String id) {
+        Integer pages = pageCounts.get(id);
+        return Objects.isNull(pages) ? unknownSize : pages >= pageThreshold;
+    }
+
+    /**
+     * 填充报表，相同模板 + 相同参数的填充结果从 {@link JasperPrintCache} 获取，命中时不再执行 fillReport，
+     * 同时未命中的请求只填充一次；
+     * 只适用于报表内容完全由参数决定的场景，使用虚拟化器填充的结果不缓存
+     *
+     * @param name       模板名称
+     * @param parameters 报表参数
+     * @param dataSource 数据源，未命中缓存时才创建
+     * @param virtualize 是否启用虚拟化器；为 null 时按模板预估页数自动判断
+     * @return {@link Filled} 使用完成后必须关闭，释放交换文件
+     */
+    public Filled fillCached(String name, Map<String, Object> parameters, Supplier<JRDataSource> dataSource, Boolean virtualize) throws JRException {
+        String key = jasperPrintCache.key(jasperTemplateService.get(name).getId(), parameters);
+        return jasperPrintCache.load(key, print -> new Filled(name, print, null, true), () -> {
+            Filled filled = fill(name, parameters, dataSource.get(), virtualize);
+            if (!filled.isVirtualized()) {
+                jasperPrintCache.put(key, filled.getPrint());
+            }
+            return filled;
+        });
+    }
+
+    /**
+     * 将请求参数按模板中声明的参数类型转换，模板未声明的参数忽略
+     *
+     * @param name   模板名称
+     * @param values {@link Map}{@link Map<String:参数名, String:参数值>}
+     * @return {@link Map}{@link Map<String:参数名, Object:转换后的参数值>}
+     */
+    public Map<String, Object> parameters(String name, Map<String, String> values) {
+        Map<String, Object> params = new HashMap<>();
+        for (JRParameter parameter : jasperTemplateService.getReport(name).getParameters()) {
+            String value = values.get(parameter.getName());
+            if (parameter.isSystemDefined() || Objects.isNull(value)) {
+                continue;
+            }
+            try {
+                params.put(parameter.getName(), convert(value, parameter.getValueClass()));
+            } catch (ConversionException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("参数【" + parameter.getName() + "】类型错误，需要：" + parameter.getValueClassName(), e);
+            }
+        }
+        return params;
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        if (Date.class.isAssignableFrom(type)) {
+            Dates dates = Dates.parse(value);
+            return Timestamp.class.equals(type) ? dates.timestamp() : dates.date();
+        }
+        return CONVERSION.convert(value, type);
+    }
+
+    /**
+     * 虚拟化器统计
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("virtualizedFills", virtualizedFills.get());
+        map.put("pagedOut", pagedOut.get());
+        map.put("swapBytes", swapBytes.get());
+        return map;
+    }
+
+    /**
+     * 填充结果，关闭时清理虚拟化器交换文件
+     */
+    public class Filled implements AutoCloseable {
+        private final String name;
+        private final JasperPrint print;
+        private final SwapFileVirtualizer virtualizer;
+        private final boolean cached;
+
+        private Filled(String name, JasperPrint print, SwapFileVirtualizer virtualizer, boolean cached) {
+            this.name = name;
+            this.print = print;
+            this.virtualizer = virtualizer;
+            this.cached = cached;
+        }
+
+        public JasperPrint getPrint() {
+            return print;
+        }
+
+        /**
+         * 是否来自缓存
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        public boolean isVirtualized() {
+            return Objects.nonNull(virtualizer);
+        }
+
+        /**
+         * 页面换出到交换文件的次数
+         */
+        public long getPagedOut() {
+            return isVirtualized() ? virtualizer.getPagedOut() : 0;
+        }
+
+        /**
+         * 写入交换文件的字节数
+         */
+        public long getSwapBytes() {
+            return isVirtualized() ? virtualizer.getSwapBytes() : 0;
+        }
+
+        @Override
+        public void close() {
+            if (isVirtualized()) {
+                virtualizedFills.incrementAndGet();
+                pagedOut.addAndGet(virtualizer.getPagedOut());
+                swapBytes.addAndGet(virtualizer.getSwapBytes());
+                logger.info("报表 {} 共 {} 页，换出 {} 次，写入交换文件 {} 字节",
+                        name, print.getPages().size(), virtualizer.getPagedOut(), virtualizer.getSwapBytes());
+                virtualizer.cleanup();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ihrm.report.service;
+
+import com.ihrm.report.excelModel.exception.NotFoundException;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jasper 模板注册表：每个 .jasper 只反序列化一次，缓存 {@link JasperReport} 对象，模板文件变化后自动重新加载；
+ * 存在同名 .jrxml 源文件时优先使用 {@link JasperCompileService} 的编译产物
+ */
+@Component
+public class JasperTemplateService {
+
+    private static Logger logger = LoggerFactory.getLogger(JasperTemplateService.class);
+    /**
+     * 模板在 classpath 下的目录
+     */
+    private static final String TEMPLATE_DIR = "templates/";
+
+    @Autowired
+    private JasperCompileService jasperCompileService;
+
+    private final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * 获取已编译的报表模板
+     *
+     * @param name 模板名称，不带后缀，如：reportDemo1
+     * @return {@link JasperReport}
+     */
+    public JasperReport getReport(String name) {
+        return get(name).getReport();
+    }
+
+    /**
+     * 获取模板缓存项；缓存不存在或模板文件修改时间发生变化时重新加载
+     *
+     * @param name 模板名称，不带后缀，如：reportDemo1
+     * @return {@link Template}
+     */
+    public Template get(String name) {
+        Resource resource = jasperCompileService.compiled(name)
+                .<Resource>map(FileSystemResource::new)
+                .orElseGet(() -> new ClassPathResource(TEMPLATE_DIR + name + ".jasper"));
+        if (!resource.exists()) {
+            throw new NotFoundException("报表模板不存在：" + name);
+        }
+        String location = resource.getDescription();
+        long lastModified = lastModified(resource);
+        Template template = templates.get(name);
+        if (Objects.nonNull(template) && template.isCurrent(location, lastModified)) {
+            return template;
+        }
+        // 同一个模板并发请求时只加载一次
+        return templates.compute(name, (key, cached) -> {
+            if (Objects.nonNull(cached) && cached.isCurrent(location, lastModified)) {
+                return cached;
+            }
+            return load(name, resource, location, lastModified);
+        });
+    }
+
+    /**
+     * 清除模板缓存，下次请求时重新加载
+     *
+     * @param name 模板名称
+     */
+    public void evict(String name) {
+        templates.remove(name);
+    }
+
+    private Template load(String name, Resource resource, String location, long lastModified) {
+        long start = System.currentTimeMillis();
+        try (InputStream is = resource.getInputStream()) {
+            byte[] bytes = StreamUtils.copyToByteArray(is);
+            JasperReport report = (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(bytes));
+            logger.info("加载报表模板：{}，耗时：{}ms", name, System.currentTimeMillis() - start);
+            return new Template(name, report, location, lastModified, DigestUtils.md5DigestAsHex(bytes));
+        } catch (IOException | JRException e) {
+            throw new IllegalStateException("报表模板加载失败：" + name, e);
+        }
+    }
+
+    /**
+     * 获取模板文件修改时间，fat jar 内无法获取时返回 -1，表示模板不会变化
+     */
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 模板缓存项
+     */
+    public static class Template {
+        private final String name;
+        private final JasperReport report;
+        private final String location;
+        private final long lastModified;
+        private final String digest;
+
+        Template(String name, JasperReport report, String location, long lastModified, String digest) {
+            this.name = name;
+            this.report = report;
+            this.location = location;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        private boolean isCurrent(String location, long lastModified) {
+            return this.lastModified == lastModified && this.location.equals(location);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public JasperReport getReport() {
+            return report;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * 模板内容 md5
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        /**
+         * 模板唯一标识：名称 + 内容 md5，模板内容变化后标识随之变化
+         */
+        public String getId() {
+            return name + "@" + digest;
+        }
+    }
+}
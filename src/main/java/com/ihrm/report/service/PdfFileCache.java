@@ -0,0 +1,290 @@
+package com.ihrm.report.service;
+
+import com.ihrm.report.function.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * pdf 磁盘缓存：按报表编码 + 页面数据指纹缓存转换结果，页面数据不变时不再启动 wkhtmltopdf
+ * <pre>
+ * 文件名：md5(报表编码)-指纹.pdf，重启后扫描目录恢复
+ * 总字节数超过上限时按最近访问时间淘汰（LRU）
+ * 命中时返回 {@link Pin} 固定文件，发送期间被淘汰或替换的文件在最后一个使用者释放后才删除，
+ * 可以交给容器 sendfile 按文件名发送，Windows 下也不会删除正在读取的文件
+ * </pre>
+ */
+@Component
+public class PdfFileCache {
+
+    private static Logger logger = LoggerFactory.getLogger(PdfFileCache.class);
+    private static final String SUFFIX = ".pdf";
+
+    /**
+     * 缓存目录
+     */
+    @Value("${pdfConfig.cache.path}")
+    private String path;
+    /**
+     * 缓存字节数上限
+     */
+    @Value("${pdfConfig.cache.maxBytes}")
+    private long maxBytes;
+    /**
+     * 移出缓存的文件在最后一次释放后延迟删除的时间（毫秒）：sendfile 在请求方法返回后才由容器打开文件，留出打开的时间
+     */
+    @Value("${pdfConfig.cache.deleteDelayMillis:60000}")
+    private long deleteDelayMillis;
+
+    private File dir;
+    /**
+     * 按访问顺序排列，最早访问的在前；key：文件名
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * 已移出缓存、等待删除的文件：仍被使用、刚释放或删除失败（Windows 下文件正在被读取）
+     */
+    private final List<Entry> orphans = new ArrayList<>();
+    /**
+     * 缓存中文件的字节数
+     */
+    private long bytes;
+    /**
+     * 等待删除的文件字节数
+     */
+    private long orphanBytes;
+    private final AtomicLong hit = new AtomicLong();
+    private final AtomicLong miss = new AtomicLong();
+    private final AtomicLong eviction = new AtomicLong();
+
+    @PostConstruct
+    public synchronized void init() {
+        dir = new File(path).getAbsoluteFile();
+        FileUtil.createDir(dir.getAbsolutePath());
+        File[] existing = dir.listFiles();
+        if (Objects.nonNull(existing)) {
+            Arrays.sort(existing, Comparator.comparingLong(File::lastModified));
+            for (File file : existing) {
+                if (file.isFile() && file.getName().endsWith(SUFFIX)) {
+                    Entry entry = new Entry(file, file.length());
+                    entries.put(file.getName(), entry);
+                    bytes += entry.size;
+                } else if (file.isFile() && !file.delete()) {
+                    logger.warn("pdf 缓存临时文件删除失败：{}", file.getAbsolutePath());
+                }
+            }
+        }
+        evict();
+    }
+
+    /**
+     * 获取缓存的 pdf 并固定，释放之前文件不会被删除
+     *
+     * @param reportCoded 报表编码
+     * @param fingerprint 页面数据指纹
+     * @return {@link Optional}{@link Optional<Pin>} 使用完成后必须关闭；未缓存或文件已不存在时返回空
+     */
+    public synchronized Optional<Pin> get(String reportCoded, String fingerprint) {
+        purge();
+        String name = name(reportCoded, fingerprint);
+        Entry entry = entries.get(name);
+        if (Objects.nonNull(entry)) {
+            if (entry.file.isFile()) {
+                entry.pins++;
+                hit.incrementAndGet();
+                return Optional.of(new Pin(entry));
+            }
+            logger.warn("pdf 缓存文件已不存在：{}", entry.file.getAbsolutePath());
+            entries.remove(name);
+            bytes -= entry.size;
+        }
+        miss.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * 复制 pdf 到缓存目录；同一报表其他指纹的旧文件同时移出缓存。
+     * 相同指纹的文件内容相同，已缓存时不再写入，不会覆盖正在发送的文件
+     *
+     * @param reportCoded 报表编码
+     * @param fingerprint 页面数据指纹
+     * @param pdf         转换结果
+     */
+    public void put(String reportCoded, String fingerprint, File pdf) {
+        String name = name(reportCoded, fingerprint);
+        synchronized (this) {
+            if (entries.containsKey(name)) {
+                return;
+            }
+        }
+        File temp = new File(dir, name + "." + UUID.randomUUID().toString().replace("-", "") + ".tmp");
+        File target = new File(dir, name);
+        try {
+            Files.copy(pdf.toPath(), temp.toPath());
+        } catch (IOException e) {
+            logger.warn("pdf 缓存写入失败：{}", target.getAbsolutePath(), e);
+            delete(temp);
+            return;
+        }
+        synchronized (this) {
+            if (entries.containsKey(name)) {
+                delete(temp);
+                return;
+            }
+            try {
+                // 不覆盖：同名文件只可能是等待删除的旧文件，此时放弃写入
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("pdf 缓存写入失败：{}", target.getAbsolutePath(), e);
+                delete(temp);
+                return;
+            }
+            Entry entry = new Entry(target, target.length());
+            entries.put(name, entry);
+            bytes += entry.size;
+            String prefix = prefix(reportCoded);
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> other = iterator.next();
+                if (other.getKey().startsWith(prefix) && !other.getKey().equals(name)) {
+                    iterator.remove();
+                    discard(other.getValue());
+                }
+            }
+            evict();
+            purge();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            discard(entry);
+            eviction.incrementAndGet();
+        }
+    }
+
+    /**
+     * 移出缓存：不再计入缓存字节数，文件转入等待删除列表，没有使用者时由 {@link #purge()} 删除
+     */
+    private void discard(Entry entry) {
+        bytes -= entry.size;
+        orphanBytes += entry.size;
+        entry.releaseTime = System.currentTimeMillis();
+        orphans.add(entry);
+    }
+
+    /**
+     * 删除没有使用者且释放超过 {@link #deleteDelayMillis} 的文件，删除失败的下次重试
+     */
+    private void purge() {
+        long expired = System.currentTimeMillis() - deleteDelayMillis;
+        Iterator<Entry> iterator = orphans.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.pins == 0 && entry.releaseTime <= expired && delete(entry.file)) {
+                iterator.remove();
+                orphanBytes -= entry.size;
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.pins--;
+        entry.releaseTime = System.currentTimeMillis();
+        purge();
+    }
+
+    private static boolean delete(File file) {
+        if (file.exists() && !file.delete()) {
+            logger.warn("pdf 缓存删除失败：{}", file.getAbsolutePath());
+            return false;
+        }
+        return true;
+    }
+
+    private static String prefix(String reportCoded) {
+        return DigestUtils.md5DigestAsHex(reportCoded.getBytes(StandardCharsets.UTF_8)) + "-";
+    }
+
+    private static String name(String reportCoded, String fingerprint) {
+        return prefix(reportCoded) + fingerprint.replaceAll("[^0-9A-Za-z]", "") + SUFFIX;
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @return {@link Map}
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hitCount", hit.get());
+        map.put("missCount", miss.get());
+        map.put("evictionCount", eviction.get());
+        map.put("size", entries.size());
+        map.put("bytes", bytes);
+        map.put("maxBytes", maxBytes);
+        map.put("orphans", orphans.size());
+        map.put("orphanBytes", orphanBytes);
+        return map;
+    }
+
+    private static class Entry {
+        private final File file;
+        /**
+         * 写入时的文件大小，删除后按该值扣减字节数
+         */
+        private final long size;
+        /**
+         * 使用者数
+         */
+        private int pins;
+        /**
+         * 最后一次释放或移出缓存的时间
+         */
+        private long releaseTime;
+
+        private Entry(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 固定的缓存文件，关闭前不会被删除
+     */
+    public class Pin implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Pin(Entry entry) {
+            this.entry = entry;
+        }
+
+        public File getFile() {
+            return entry.file;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            release(entry);
+        }
+    }
+}
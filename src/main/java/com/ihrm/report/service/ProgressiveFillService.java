@@ -0,0 +1,311 @@
+package com.ihrm.report.service;
+
+import net.sf.jasperreports.engine.*;
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
+import net.sf.jasperreports.engine.fill.AsynchronousFilllListener;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleHtmlExporterConfiguration;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
+import net.sf.jasperreports.export.SimpleHtmlReportConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jasper 报表渐进式输出：基于 {@link AsynchronousFillHandle} 后台填充，每生成一页立即导出该页，不等待整份报表填充完成
+ * <pre>
+ * HTML 按页流式写出并 flush；单页 PNG 预览在该页生成后即可获取
+ * 相同模板 + 相同参数的请求共享同一次填充，所有请求都断开后取消填充
+ * 填充完成后结果写入 {@link JasperPrintCache}
+ * </pre>
+ */
+@Component
+public class ProgressiveFillService {
+
+    private static Logger logger = LoggerFactory.getLogger(ProgressiveFillService.class);
+    private static final String HTML_HEADER = "<!DOCTYPE html>\n<html>\n<head>\n<meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\"/>\n"
+            + "<style type=\"text/css\">a {text-decoration: none}</style>\n</head>\n<body text=\"#000000\" link=\"#000000\" alink=\"#000000\" vlink=\"#000000\">\n";
+    private static final String HTML_FOOTER = "</body>\n</html>\n";
+
+    @Autowired
+    private JasperTemplateService jasperTemplateService;
+    @Autowired
+    private JasperPrintCache jasperPrintCache;
+
+    /**
+     * 同时进行的渐进式填充数上限，每次填充占用一个线程
+     */
+    @Value("${jasperConfig.progressive.maxFills}")
+    private int maxFills;
+    /**
+     * 等待单页生成的超时时间（秒）
+     */
+    @Value("${jasperConfig.progressive.pageTimeoutSeconds}")
+    private long pageTimeoutSeconds;
+
+    /**
+     * 进行中的填充；key：{@link JasperPrintCache#key(String, Map)}
+     */
+    private final ConcurrentHashMap<String, Progress> fills = new ConcurrentHashMap<>();
+
+    /**
+     * 开始或加入填充，使用完成后必须关闭；缓存命中时直接返回已完成的结果
+     *
+     * @param name       模板名称
+     * @param parameters 报表参数
+     * @return {@link Progress}
+     * @throws RejectedExecutionException 进行中的填充数达到上限
+     */
+    public Progress open(String name, Map<String, Object> parameters) throws JRException {
+        JasperTemplateService.Template template = jasperTemplateService.get(name);
+        String key = jasperPrintCache.key(template.getId(), parameters);
+        Optional<JasperPrint> cached = jasperPrintCache.get(key);
+        if (cached.isPresent()) {
+            return new Progress(key, cached.get());
+        }
+        boolean[] created = {false};
+        Progress progress = fills.compute(key, (k, current) -> {
+            if (Objects.nonNull(current)) {
+                current.subscribers.incrementAndGet();
+                return current;
+            }
+            if (fills.size() >= maxFills) {
+                throw new RejectedExecutionException("进行中的报表填充数已达上限：" + maxFills);
+            }
+            created[0] = true;
+            return new Progress(k);
+        });
+        if (created[0]) {
+            try {
+                progress.start(template.getReport(), parameters);
+            } catch (JRException | RuntimeException e) {
+                fills.remove(key, progress);
+                throw e;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * 按页导出 HTML，每页生成后立即写出并 flush
+     *
+     * @param progress {@link Progress}
+     * @param os       {@link OutputStream} 输出流，不会关闭
+     * @return 导出的页数
+     * @throws IOException 写出失败（客户端断开），或等待单页超时
+     */
+    public int html(Progress progress, OutputStream os) throws IOException, JRException {
+        os.write(HTML_HEADER.getBytes(StandardCharsets.UTF_8));
+        os.flush();
+        int pageIndex = 0;
+        while (progress.await(pageIndex, pageTimeoutSeconds)) {
+            HtmlExporter exporter = new HtmlExporter();
+            exporter.setExporterInput(new SimpleExporterInput(progress.print));
+            exporter.setExporterOutput(new SimpleHtmlExporterOutput(os, StandardCharsets.UTF_8.name()));
+            SimpleHtmlExporterConfiguration exporterConfiguration = new SimpleHtmlExporterConfiguration();
+            exporterConfiguration.setHtmlHeader("");
+            exporterConfiguration.setBetweenPagesHtml("");
+            exporterConfiguration.setHtmlFooter("");
+            exporterConfiguration.setFlushOutput(true);
+            exporter.setConfiguration(exporterConfiguration);
+            SimpleHtmlReportConfiguration reportConfiguration = new SimpleHtmlReportConfiguration() {
+                @Override
+                public Boolean isEmbedImage() {
+                    return true;
+                }
+            };
+            reportConfiguration.setPageIndex(pageIndex);
+            exporter.setConfiguration(reportConfiguration);
+            exporter.exportReport();
+            os.flush();
+            pageIndex++;
+        }
+        os.write(HTML_FOOTER.getBytes(StandardCharsets.UTF_8));
+        os.flush();
+        return pageIndex;
+    }
+
+    /**
+     * 导出单页 PNG 预览，该页生成后即可导出
+     *
+     * @param progress  {@link Progress}
+     * @param pageIndex 页码，从 0 开始
+     * @param zoom      缩放比例
+     * @param os        {@link OutputStream} 输出流，不会关闭
+     * @return 页码超出报表总页数时返回 false
+     */
+    public boolean png(Progress progress, int pageIndex, float zoom, OutputStream os) throws IOException, JRException {
+        if (!progress.await(pageIndex, pageTimeoutSeconds)) {
+            return false;
+        }
+        BufferedImage image = (BufferedImage) JasperPrintManager.printPageToImage(progress.print, pageIndex, zoom);
+        ImageIO.write(image, "png", os);
+        return true;
+    }
+
+    /**
+     * 填充进度
+     */
+    public class Progress implements AutoCloseable {
+        private final String key;
+        /**
+         * 共享该次填充的请求数
+         */
+        private final AtomicInteger subscribers = new AtomicInteger(1);
+        /**
+         * 是否直接使用缓存的结果，没有后台填充
+         */
+        private final boolean cached;
+        private volatile AsynchronousFillHandle handle;
+        private volatile JasperPrint print;
+        private volatile boolean finished;
+        private volatile Throwable error;
+
+        private Progress(String key) {
+            this.key = key;
+            this.cached = false;
+        }
+
+        private Progress(String key, JasperPrint print) {
+            this.key = key;
+            this.cached = true;
+            this.print = print;
+            this.finished = true;
+        }
+
+        private void start(JasperReport report, Map<String, Object> parameters) throws JRException {
+            handle = AsynchronousFillHandle.createHandle(report, new HashMap<>(parameters), new JREmptyDataSource());
+            handle.setThreadName("jasper-progressive-" + report.getName());
+            handle.addFillListener(new FillListener() {
+                @Override
+                public void pageGenerated(JasperPrint jasperPrint, int pageIndex) {
+                    signal(jasperPrint);
+                }
+
+                @Override
+                public void pageUpdated(JasperPrint jasperPrint, int pageIndex) {
+                    signal(jasperPrint);
+                }
+            });
+            handle.addListener(new AsynchronousFilllListener() {
+                @Override
+                public void reportFinished(JasperPrint jasperPrint) {
+                    jasperPrintCache.put(key, jasperPrint);
+                    finish(jasperPrint, null);
+                }
+
+                @Override
+                public void reportCancelled() {
+                    finish(null, new JRException("报表填充已取消"));
+                }
+
+                @Override
+                public void reportFillError(Throwable t) {
+                    logger.error("报表填充失败：{}", key, t);
+                    finish(null, t);
+                }
+            });
+            handle.startFill();
+        }
+
+        private synchronized void signal(JasperPrint jasperPrint) {
+            print = jasperPrint;
+            notifyAll();
+        }
+
+        private synchronized void finish(JasperPrint jasperPrint, Throwable t) {
+            if (Objects.nonNull(jasperPrint)) {
+                print = jasperPrint;
+            }
+            error = t;
+            finished = true;
+            fills.remove(key, this);
+            notifyAll();
+        }
+
+        /**
+         * 等待指定页生成完成（该页不会再被修改）
+         *
+         * @return 报表已填充完成且没有该页时返回 false
+         */
+        private synchronized boolean await(int pageIndex, long timeoutSeconds) throws IOException, JRException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (true) {
+                if (Objects.nonNull(error)) {
+                    throw error instanceof JRException ? (JRException) error : new JRException(error);
+                }
+                if (finished) {
+                    return pageIndex < print.getPages().size();
+                }
+                if (Objects.nonNull(print) && pageIndex < print.getPages().size() && handle.isPageFinal(pageIndex)) {
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IOException("等待第 " + (pageIndex + 1) + " 页超时：" + key);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("等待报表填充被中断", e);
+                }
+            }
+        }
+
+        /**
+         * 已生成的页数
+         */
+        public int getPages() {
+            return Objects.isNull(print) ? 0 : print.getPages().size();
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        /**
+         * 退出填充；所有请求都退出（如客户端断开）且填充未完成时取消填充
+         */
+        @Override
+        public void close() {
+            if (cached) {
+                return;
+            }
+            boolean[] last = {false};
+            fills.computeIfPresent(key, (k, current) -> {
+                if (current != this || subscribers.decrementAndGet() > 0) {
+                    return current;
+                }
+                last[0] = true;
+                return null;
+            });
+            if (last[0] && !finished) {
+                try {
+                    handle.cancellFill();
+                    logger.info("请求已全部断开，取消报表填充：{}", key);
+                } catch (JRException e) {
+                    logger.warn("取消报表填充失败：{}", key, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.ihrm.report.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.ihrm.report.enums.ReportFormat;
+import com.ihrm.report.excelModel.enums.ContentType;
+import com.ihrm.report.excelModel.exception.NotFoundException;
+import com.ihrm.report.function.FileUtil;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * 报表异步任务：提交后立即返回任务号，由有界线程池在后台填充/转换，结果写入缓存目录，客户端轮询状态后下载
+ * <pre>
+ * 相同内容的任务在执行期间重复提交时，返回同一个任务
+ * 缓存目录超过配额时，按最近访问时间淘汰已完成任务的文件
+ * 结束的任务超过有效期未访问、或任务总数超过上限时，移除任务状态
+ * </pre>
+ */
+@Component
+public class ReportJobService {
+
+    private static Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    @Autowired
+    private JasperReportService jasperReportService;
+    @Autowired
+    private JasperTemplateService jasperTemplateService;
+    @Autowired
+    private JasperPrintCache jasperPrintCache;
+    @Autowired
+    private HtmlToPdfService htmlToPdfService;
+
+    /**
+     * 任务结果缓存目录
+     */
+    @Value("${reportJob.spoolPath}")
+    private String spoolPath;
+    /**
+     * 缓存目录字节数配额
+     */
+    @Value("${reportJob.quotaBytes}")
+    private long quotaBytes;
+    /**
+     * 同时执行的任务数
+     */
+    @Value("${reportJob.threads}")
+    private int threads;
+    /**
+     * 等待执行的任务数上限，超过后拒绝提交
+     */
+    @Value("${reportJob.queueCapacity}")
+    private int queueCapacity;
+    /**
+     * 结束的任务（完成、失败、已淘汰）最后一次访问后保留的时间（秒），过期后删除文件并移除任务状态
+     */
+    @Value("${reportJob.ttlSeconds:3600}")
+    private long ttlSeconds;
+    /**
+     * 保留的任务状态数上限，超过后按最近访问时间移除结束的任务
+     */
+    @Value("${reportJob.maxJobs:10000}")
+    private int maxJobs;
+
+    private ThreadPoolExecutor executor;
+    private File spool;
+    /**
+     * 所有任务；key：任务号
+     */
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    /**
+     * 等待或执行中的任务；key：任务内容标识
+     */
+    private final ConcurrentHashMap<String, Job> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        spool = new File(spoolPath).getAbsoluteFile();
+        FileUtil.createDir(spool.getAbsolutePath());
+        // 重启后任务状态丢失，遗留的结果文件无法再下载
+        File[] files = spool.listFiles();
+        if (Objects.nonNull(files)) {
+            for (File file : files) {
+                if (file.isFile() && !file.delete()) {
+                    logger.warn("任务文件删除失败：{}", file.getAbsolutePath());
+                }
+            }
+        }
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("report-job-%d").build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交 Jasper 报表任务
+     *
+     * @param name       模板名称
+     * @param format     {@link ReportFormat} 导出格式
+     * @param values     请求参数，按模板中声明的参数类型转换
+     * @param virtualize 是否启用交换文件虚拟化器
+     * @return {@link Job}
+     * @throws RejectedExecutionException 等待队列已满
+     */
+    public Job submitJasper(String name, ReportFormat format, Map<String, String> values, Boolean virtualize) {
+        Map<String, Object> parameters = jasperReportService.parameters(name, values);
+        String key = "jasper:" + jasperPrintCache.key(jasperTemplateService.get(name).getId(), parameters) + ":" + format.name();
+        return submit(key, name + format.extension(), format.mediaType(), job -> {
+            job.stage("filling", 10);
+            try (JasperReportService.Filled filled = jasperReportService.fillCached(name, parameters, JREmptyDataSource::new, virtualize)) {
+                job.stage("exporting", 60);
+                try (OutputStream os = Files.newOutputStream(job.temp.toPath())) {
+                    format.export(filled.getPrint(), os);
+                }
+            }
+        });
+    }
+
+    /**
+     * 提交 html 转 pdf 任务
+     *
+     * @param reportCoded 报表编码
+     * @return {@link Job}
+     * @throws RejectedExecutionException 等待队列已满
+     */
+    public Job submitPdf(String reportCoded) {
+        return submit("pdf:" + reportCoded, reportCoded + ContentType.pdf.comment, ContentType.pdf.type, job -> {
+            job.stage("converting", 10);
+            try (HtmlToPdfService.Artifact artifact = htmlToPdfService.share(reportCoded);
+                 FileChannel target = FileChannel.open(job.temp.toPath(),
+                         StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                FileChannel source = artifact.channel();
+                long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            }
+        });
+    }
+
+    private Job submit(String key, String fileName, String contentType, Task task) {
+        boolean[] created = {false};
+        Job job = inFlight.computeIfAbsent(key, k -> {
+            created[0] = true;
+            // 在 compute 内登记，其他请求拿到任务号时一定能查询到
+            Job value = new Job(UUID.randomUUID().toString().replace("-", ""), k, fileName, contentType);
+            jobs.put(value.id, value);
+            return value;
+        });
+        if (!created[0]) {
+            return job;
+        }
+        expire();
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            inFlight.remove(key, job);
+            throw e;
+        }
+        return job;
+    }
+
+    private void run(Job job, Task task) {
+        job.state = State.RUNNING;
+        job.startTime = System.currentTimeMillis();
+        try {
+            task.run(job);
+            Files.move(job.temp.toPath(), job.file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            job.size = job.file.length();
+            job.stage("done", 100);
+            job.state = State.DONE;
+        } catch (Exception e) {
+            logger.error("报表任务执行失败：{}", job.key, e);
+            job.error = e.getMessage();
+            job.state = State.FAILED;
+        } finally {
+            job.finishTime = job.accessTime = System.currentTimeMillis();
+            if (job.temp.exists() && !job.temp.delete()) {
+                logger.warn("任务临时文件删除失败：{}", job.temp.getAbsolutePath());
+            }
+            inFlight.remove(job.key, job);
+        }
+        evict();
+    }
+
+    /**
+     * 缓存目录超过配额时，按最近访问时间从早到晚删除已完成任务的文件
+     */
+    private synchronized void evict() {
+        List<Job> done = jobs.values().stream()
+                .filter(job -> job.state == State.DONE)
+                .sorted(Comparator.comparingLong(job -> job.accessTime))
+                .collect(Collectors.toList());
+        long total = done.stream().mapToLong(job -> job.size).sum();
+        for (Job job : done) {
+            if (total <= quotaBytes) {
+                break;
+            }
+            job.state = State.EVICTED;
+            total -= job.size;
+            deleteFile(job);
+            logger.info("缓存目录超过配额，淘汰任务：{}", job.id);
+        }
+        expire();
+    }
+
+    /**
+     * 移除过期的任务状态：结束的任务超过有效期未访问时移除；任务总数超过上限时，按最近访问时间从早到晚移除结束的任务。
+     * 结果文件删除失败（如 Windows 下文件正在下载）时保留任务，下次再删除
+     */
+    private synchronized void expire() {
+        long expired = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(ttlSeconds);
+        List<Job> finished = jobs.values().stream()
+                .filter(job -> job.state == State.DONE || job.state == State.FAILED || job.state == State.EVICTED)
+                .sorted(Comparator.comparingLong(job -> job.accessTime))
+                .collect(Collectors.toList());
+        int excess = jobs.size() - maxJobs;
+        for (Job job : finished) {
+            if (job.accessTime >= expired && excess <= 0) {
+                break;
+            }
+            job.state = State.EVICTED;
+            if (deleteFile(job)) {
+                jobs.remove(job.id, job);
+                excess--;
+            }
+        }
+    }
+
+    private boolean deleteFile(Job job) {
+        if (job.file.exists() && !job.file.delete()) {
+            logger.warn("任务文件删除失败：{}", job.file.getAbsolutePath());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param id 任务号
+     * @return {@link Job}
+     */
+    public Job get(String id) {
+        return Optional.ofNullable(jobs.get(id)).orElseThrow(() -> new NotFoundException("任务不存在：" + id));
+    }
+
+    /**
+     * 获取已完成任务的结果文件
+     *
+     * @param id 任务号
+     * @return {@link Optional}{@link Optional<File>} 任务未完成或文件已淘汰时为空
+     */
+    public Optional<File> file(String id) {
+        Job job = get(id);
+        if (job.state != State.DONE) {
+            return Optional.empty();
+        }
+        job.accessTime = System.currentTimeMillis();
+        return Optional.of(job.file).filter(File::isFile);
+    }
+
+    /**
+     * 线程池和缓存目录统计
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("active", executor.getActiveCount());
+        map.put("queued", executor.getQueue().size());
+        map.put("completed", executor.getCompletedTaskCount());
+        map.put("jobs", jobs.size());
+        map.put("spoolBytes", jobs.values().stream().filter(job -> job.state == State.DONE).mapToLong(job -> job.size).sum());
+        return map;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run(Job job) throws Exception;
+    }
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, EVICTED
+    }
+
+    /**
+     * 任务状态
+     */
+    public class Job {
+        private final String id;
+        private final String key;
+        private final String fileName;
+        private final String contentType;
+        private final File file;
+        private final File temp;
+        private final long createTime = System.currentTimeMillis();
+        private volatile State state = State.QUEUED;
+        private volatile String stage = "queued";
+        private volatile int progress;
+        private volatile String error;
+        private volatile long size;
+        private volatile long startTime;
+        private volatile long finishTime;
+        private volatile long accessTime;
+
+        private Job(String id, String key, String fileName, String contentType) {
+            this.id = id;
+            this.key = key;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.file = new File(spool, id);
+            this.temp = new File(spool, id + ".tmp");
+        }
+
+        private void stage(String stage, int progress) {
+            this.stage = stage;
+            this.progress = progress;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * 当前阶段：queued、filling、exporting、converting、done
+         */
+        public String getStage() {
+            return stage;
+        }
+
+        /**
+         * 进度百分比
+         */
+        public int getProgress() {
+            return progress;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getCreateTime() {
+            return createTime;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getFinishTime() {
+            return finishTime;
+        }
+    }
+}
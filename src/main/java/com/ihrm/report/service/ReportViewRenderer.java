@@ -0,0 +1,117 @@
+package com.ihrm.report.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在 JVM 内渲染报表页面，代替 wkhtmltopdf 回调本服务的 http 请求
+ * <pre>
+ * 模板：{@code templates/<pdfConfig.view.template>.html}，模板不存在时返回空，调用方回退到 http 地址
+ * 数据：由 {@link ModelProvider} 提供，页面中的相对路径通过 &lt;base&gt; 指向本服务
+ * 模板脚本执行完成后设置 window.status 时，需要配置 pdfConfig.view.windowStatus: true，wkhtmltopdf 才会等待该状态
+ * </pre>
+ */
+@Component
+public class ReportViewRenderer {
+
+    private static final Pattern HEAD = Pattern.compile("<head[^>]*>", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+    @Autowired
+    private ResourceLoader resourceLoader;
+    @Autowired(required = false)
+    private List<ModelProvider> modelProviders = Collections.emptyList();
+
+    /**
+     * 报表页面模板名称
+     */
+    @Value("${pdfConfig.view.template}")
+    private String template;
+    /**
+     * 模板是否在渲染完成后设置 window.status
+     */
+    @Value("${pdfConfig.view.windowStatus:false}")
+    private boolean windowStatus;
+    /**
+     * 设置的 window.status 值，作为模板变量 windowStatus 传入
+     */
+    @Value("${pdfConfig.windowStatus}")
+    private String windowStatusValue;
+    @Value("${spring.thymeleaf.prefix:classpath:/templates/}")
+    private String prefix;
+    @Value("${spring.thymeleaf.suffix:.html}")
+    private String suffix;
+    /**
+     * 容器 请求 头 http://127.0.0.1:808
+     */
+    @Value("${pathConfig.pdfHttpHeader}")
+    private String pdfHttpHeader;
+
+    /**
+     * 已确认存在的模板；不存在的结果不缓存，模板部署后无需重启即可生效
+     */
+    private final Set<String> exists = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 渲染报表页面
+     *
+     * @param reportCoded 报表编码
+     * @return {@link Optional}{@link Optional<String:html>} 模板不存在时为空
+     */
+    public Optional<String> render(String reportCoded) {
+        if (!exists.contains(template)) {
+            if (!resourceLoader.getResource(prefix + template + suffix).exists()) {
+                return Optional.empty();
+            }
+            exists.add(template);
+        }
+        Map<String, Object> model = new HashMap<>();
+        model.put("reportCoded", reportCoded);
+        model.put("windowStatus", windowStatusValue);
+        for (ModelProvider provider : modelProviders) {
+            model.putAll(provider.model(reportCoded));
+        }
+        return Optional.of(base(templateEngine.process(template, new Context(Locale.getDefault(), model))));
+    }
+
+    /**
+     * 模板是否在脚本执行完成后设置 window.status，为 true 时 wkhtmltopdf 使用 --window-status 等待，否则固定延迟
+     *
+     * @return boolean
+     */
+    public boolean isWindowStatus() {
+        return windowStatus;
+    }
+
+    /**
+     * 页面通过标准输入传给 wkhtmltopdf 时没有地址，插入 &lt;base&gt; 使样式、脚本、图片等相对路径指向本服务
+     */
+    private String base(String html) {
+        Matcher matcher = HEAD.matcher(html);
+        if (!matcher.find() || html.contains("<base ")) {
+            return html;
+        }
+        return html.substring(0, matcher.end()) + "<base href=\"" + pdfHttpHeader + "/\"/>" + html.substring(matcher.end());
+    }
+
+    /**
+     * 报表页面数据，按报表编码查询后放入模板变量
+     */
+    public interface ModelProvider {
+        /**
+         * @param reportCoded 报表编码
+         * @return {@link Map}{@link Map<String:模板变量名, Object:值>}
+         */
+        Map<String, Object> model(String reportCoded);
+    }
+}
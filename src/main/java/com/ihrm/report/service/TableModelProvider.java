@@ -0,0 +1,53 @@
+package com.ihrm.report.service;
+
+import com.alibaba.fastjson.JSON;
+import com.ihrm.report.excelModel.excel.entity.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 报表页面数据：从数据目录读取 {@code <报表编码>.json}（{@link Table} 格式），作为模板变量 table 传入；文件不存在时不提供数据
+ */
+@Component
+public class TableModelProvider implements ReportViewRenderer.ModelProvider {
+
+    private static Logger logger = LoggerFactory.getLogger(TableModelProvider.class);
+    /**
+     * 报表编码只允许字母、数字、下划线、中划线，防止拼接出数据目录之外的路径
+     */
+    private static final Pattern CODE = Pattern.compile("[\\w-]+");
+
+    /**
+     * 报表页面数据目录
+     */
+    @Value("${pdfConfig.view.dataPath}")
+    private String dataPath;
+
+    @Override
+    public Map<String, Object> model(String reportCoded) {
+        if (!CODE.matcher(reportCoded).matches()) {
+            return Collections.emptyMap();
+        }
+        File file = new File(dataPath, reportCoded + ".json");
+        if (!file.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            Table table = JSON.parseObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), Table.class);
+            return Collections.singletonMap("table", table);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("报表页面数据读取失败：{}", file.getAbsolutePath(), e);
+            return Collections.emptyMap();
+        }
+    }
+}
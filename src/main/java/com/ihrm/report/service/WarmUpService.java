@@ -0,0 +1,186 @@
+package com.ihrm.report.service;
+
+import com.google.common.io.ByteStreams;
+import com.ihrm.report.enums.ReportFormat;
+import com.ihrm.report.excelModel.util.ThreadPool;
+import com.lowagie.text.pdf.BaseFont;
+import net.sf.jasperreports.engine.*;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignStaticText;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fonts.FontFace;
+import net.sf.jasperreports.engine.fonts.FontFamily;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 启动预热：服务启动后在后台加载字体扩展、创建 PDF 字体、编译并填充导出一份合成报表，
+ * 避免部署后第一个报表请求承担类加载和字体解析的耗时；预热完成前就绪检查返回未就绪
+ * <pre>
+ * 嵌入 PDF 的字体通过 {@link BaseFont#createFont(String, String, boolean, boolean, byte[], byte[])} 以 cached=true 创建，
+ * 进入 iText 全局字体缓存，JRPdfExporter 导出时按相同的字体名、编码直接复用，不再读取和解析字体文件
+ * </pre>
+ */
+@Component
+public class WarmUpService {
+
+    private static Logger logger = LoggerFactory.getLogger(WarmUpService.class);
+    private static final String TEXT = "报表预热 Warm-up 0123456789";
+
+    private volatile boolean ready;
+    private volatile long startTime;
+    private volatile long warmUpMillis = -1;
+    /**
+     * 各阶段耗时（毫秒）
+     */
+    private final Map<String, Long> steps = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ThreadPool.run(this::warmUp);
+    }
+
+    private void warmUp() {
+        startTime = System.currentTimeMillis();
+        try {
+            List<FontFamily> families = step("fonts", this::fonts);
+            JasperReport report = step("compile", () -> JasperCompileManager.compileReport(design(families)));
+            JasperPrint print = step("fill", () -> JasperFillManager.fillReport(report, new HashMap<>(), new JREmptyDataSource()));
+            for (ReportFormat format : ReportFormat.values()) {
+                try {
+                    step("export." + format.name().toLowerCase(), () -> {
+                        format.export(print, ByteStreams.nullOutputStream());
+                        return null;
+                    });
+                } catch (Exception e) {
+                    // 单个格式导出失败不影响其他格式预热
+                }
+            }
+        } catch (Exception e) {
+            logger.error("报表预热失败", e);
+        } finally {
+            warmUpMillis = System.currentTimeMillis() - startTime;
+            ready = true;
+            logger.info("报表预热完成，耗时 {} ms：{}", warmUpMillis, steps);
+        }
+    }
+
+    /**
+     * 加载字体扩展，为每个嵌入 PDF 的字体创建 {@link BaseFont} 放入 iText 字体缓存
+     *
+     * @return 加载成功的字体族
+     */
+    private List<FontFamily> fonts() {
+        JasperReportsContext context = DefaultJasperReportsContext.getInstance();
+        List<FontFamily> families = new ArrayList<>();
+        for (FontFamily family : context.getExtensions(FontFamily.class)) {
+            boolean success = true;
+            FontFace[] faces = {family.getNormalFace(), family.getBoldFace(), family.getItalicFace(), family.getBoldItalicFace()};
+            Set<String> loaded = new HashSet<>();
+            for (FontFace face : faces) {
+                if (Objects.isNull(face)) {
+                    continue;
+                }
+                String pdfFont = Objects.nonNull(face.getPdf()) ? face.getPdf() : face.getTtf();
+                if (Objects.isNull(pdfFont) || !loaded.add(pdfFont)) {
+                    continue;
+                }
+                try {
+                    // 解析 awt 字体，填充时计算文本宽度使用
+                    face.getFont();
+                    boolean embedded = Boolean.TRUE.equals(family.isPdfEmbedded());
+                    String encoding = Objects.nonNull(family.getPdfEncoding()) ? family.getPdfEncoding() : BaseFont.CP1252;
+                    BaseFont.createFont(pdfFont, encoding, embedded, true, RepositoryUtil.getInstance(context).getBytesFromLocation(pdfFont), null);
+                } catch (Exception | LinkageError e) {
+                    logger.warn("字体预加载失败：{} {}", family.getName(), pdfFont, e);
+                    errors.add("fonts: " + family.getName() + " " + pdfFont + " " + e.getMessage());
+                    success = false;
+                }
+            }
+            if (success) {
+                families.add(family);
+            }
+        }
+        return families;
+    }
+
+    /**
+     * 合成报表：每个字体族一行文本
+     */
+    private static JasperDesign design(List<FontFamily> families) throws JRException {
+        JasperDesign design = new JasperDesign();
+        design.setName("warmUp");
+        design.setPageWidth(595);
+        design.setPageHeight(842);
+        design.setColumnWidth(555);
+        design.setLeftMargin(20);
+        design.setRightMargin(20);
+        design.setTopMargin(20);
+        design.setBottomMargin(20);
+        JRDesignBand title = new JRDesignBand();
+        List<String> fontNames = new ArrayList<>();
+        fontNames.add(null);
+        families.forEach(family -> fontNames.add(family.getName()));
+        int y = 0;
+        for (String fontName : fontNames) {
+            JRDesignStaticText text = new JRDesignStaticText();
+            text.setX(0);
+            text.setY(y);
+            text.setWidth(555);
+            text.setHeight(20);
+            text.setFontName(fontName);
+            text.setText(TEXT);
+            title.addElement(text);
+            y += 20;
+        }
+        title.setHeight(y);
+        design.setTitle(title);
+        return design;
+    }
+
+    private <T> T step(String name, Step<T> step) throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            return step.run();
+        } catch (Exception | LinkageError e) {
+            logger.warn("报表预热 {} 失败", name, e);
+            errors.add(name + ": " + e.getMessage());
+            throw e;
+        } finally {
+            steps.put(name, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 预热是否完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 预热状态：是否就绪、总耗时、各阶段耗时、失败信息
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("ready", ready);
+        map.put("warmUpMillis", ready ? warmUpMillis : startTime > 0 ? System.currentTimeMillis() - startTime : 0);
+        map.put("steps", new LinkedHashMap<>(steps));
+        map.put("errors", new ArrayList<>(errors));
+        return map;
+    }
+
+    @FunctionalInterface
+    private interface Step<T> {
+        T run() throws Exception;
+    }
+}
@@ -0,0 +1,110 @@
+package com.ihrm.report.datasource;
+
+import net.sf.jasperreports.engine.*;
+import net.sf.jasperreports.engine.design.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class ResultSetStreamDataSourceTest {
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:stream;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table item(id int primary key, name varchar(50), amount decimal(10, 2), created timestamp)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into item values(?, ?, ?, ?)")) {
+            for (int i = 1; i <= 50000; i++) {
+                insert.setInt(1, i);
+                insert.setString(2, "name" + i);
+                insert.setBigDecimal(3, BigDecimal.valueOf(i, 2));
+                insert.setTimestamp(4, new Timestamp(1_600_000_000_000L + i * 1000L));
+                insert.addBatch();
+                if (i % 5000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table item");
+        }
+        connection.close();
+    }
+
+    private static JRDesignField field(final String name, final Class<?> type) {
+        final JRDesignField field = new JRDesignField();
+        field.setName(name);
+        field.setValueClass(type);
+        return field;
+    }
+
+    @Test
+    public void mapsFieldsByColumnLabelAndCoercesTypes() throws Exception {
+        try (ResultSetStreamDataSource dataSource = ResultSetStreamDataSource.of(connection,
+                "select id, name, amount, created from item where id <= ? order by id", 2)) {
+            assertTrue(dataSource.next());
+            assertEquals(1L, dataSource.getFieldValue(field("ID", Long.class)));
+            assertEquals("name1", dataSource.getFieldValue(field("NAME", String.class)));
+            assertEquals(new BigDecimal("0.01"), dataSource.getFieldValue(field("AMOUNT", BigDecimal.class)));
+            assertEquals(new Timestamp(1_600_000_001_000L), dataSource.getFieldValue(field("CREATED", Timestamp.class)));
+            assertTrue(dataSource.next());
+            assertEquals("name2", dataSource.getFieldValue(field("NAME", String.class)));
+            assertFalse(dataSource.next());
+        }
+    }
+
+    @Test
+    public void closeReleasesResultSet() throws Exception {
+        final ResultSetStreamDataSource dataSource = ResultSetStreamDataSource.of(connection, "select id from item");
+        assertTrue(dataSource.next());
+        dataSource.close();
+        try {
+            dataSource.next();
+            fail("结果集关闭后不能继续读取");
+        } catch (JRException expected) {
+            // 结果集已关闭
+        }
+        assertFalse("数据库连接由调用方管理", connection.isClosed());
+    }
+
+    @Test
+    public void fillsReportFromStreamedRows() throws Exception {
+        final JasperDesign design = new JasperDesign();
+        design.setName("stream");
+        design.setPageWidth(595);
+        design.setPageHeight(842);
+        design.setColumnWidth(555);
+        design.addField(field("ID", Integer.class));
+        final JRDesignBand detail = new JRDesignBand();
+        detail.setHeight(12);
+        final JRDesignTextField text = new JRDesignTextField();
+        text.setWidth(100);
+        text.setHeight(12);
+        text.setExpression(new JRDesignExpression("$F{ID}"));
+        detail.addElement(text);
+        ((JRDesignSection) design.getDetailSection()).addBand(detail);
+        final JasperReport report = JasperCompileManager.compileReport(design);
+        try (ResultSetStreamDataSource dataSource = ResultSetStreamDataSource.of(connection, "select id from item order by id")) {
+            final JasperPrint print = JasperFillManager.fillReport(report, new HashMap<>(), dataSource);
+            final int rowsPerPage = (842 - design.getTopMargin() - design.getBottomMargin()) / 12;
+            assertEquals((50000 + rowsPerPage - 1) / rowsPerPage, print.getPages().size());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ihrm.report.datasource;
+
+import com.ihrm.report.excelModel.excel.ExcelReader;
+import com.ihrm.report.excelModel.excel.Rownum;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class SheetReaderDataSourceTest {
+
+    private File file;
+    private ExcelReader reader;
+    private Date created;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("sheet-reader-", ".xlsx");
+        created = new Calendar.Builder().setDate(2020, Calendar.SEPTEMBER, 16).build().getTime();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream os = new FileOutputStream(file)) {
+            final CellStyle date = workbook.createCellStyle();
+            date.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            final Sheet sheet = workbook.createSheet();
+            final Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("名称");
+            header.createCell(1).setCellValue("数量");
+            header.createCell(2).setCellValue("日期");
+            header.createCell(3).setCellValue("启用");
+            for (int i = 1; i <= 3; i++) {
+                final Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("name" + i);
+                row.createCell(1).setCellValue(i * 1.5);
+                row.createCell(2).setCellValue(created);
+                row.getCell(2).setCellStyle(date);
+                row.createCell(3).setCellValue(i % 2 == 1);
+            }
+            workbook.write(os);
+        }
+        reader = ExcelReader.of(file).sheet(0).row(Rownum.of(1));
+    }
+
+    @After
+    public void tearDown() {
+        reader.close();
+        assertTrue(file.delete());
+    }
+
+    private static JRDesignField field(final String name, final Class<?> type, final String description) {
+        final JRDesignField field = new JRDesignField();
+        field.setName(name);
+        field.setValueClass(type);
+        field.setDescription(description);
+        return field;
+    }
+
+    @Test
+    public void mapsFieldsByHeaderAndCoercesTypes() {
+        final SheetReaderDataSource dataSource = SheetReaderDataSource.ofHeader(reader);
+        assertTrue(dataSource.next());
+        assertEquals("name1", dataSource.getFieldValue(field("名称", String.class, null)));
+        assertEquals(new BigDecimal("1.5"), dataSource.getFieldValue(field("数量", BigDecimal.class, null)));
+        assertEquals(1.5D, dataSource.getFieldValue(field("数量", Double.class, null)));
+        assertEquals(1, dataSource.getFieldValue(field("数量", Integer.class, null)));
+        assertEquals(created, dataSource.getFieldValue(field("日期", Date.class, null)));
+        assertEquals(true, dataSource.getFieldValue(field("启用", Boolean.class, null)));
+        assertNull(dataSource.getFieldValue(field("不存在", String.class, null)));
+    }
+
+    @Test
+    public void mapsFieldsByColumnDescription() {
+        final SheetReaderDataSource dataSource = new SheetReaderDataSource(reader, Collections.emptyMap());
+        assertTrue(dataSource.next());
+        assertTrue(dataSource.next());
+        assertEquals("name2", dataSource.getFieldValue(field("name", String.class, "A")));
+        assertEquals(false, dataSource.getFieldValue(field("enabled", Boolean.class, "D")));
+    }
+
+    @Test
+    public void stopsAtLastRow() {
+        final SheetReaderDataSource dataSource = SheetReaderDataSource.ofHeader(reader);
+        int rows = 0;
+        while (dataSource.next()) {
+            rows++;
+        }
+        assertEquals(3, rows);
+        assertFalse(dataSource.next());
+    }
+}
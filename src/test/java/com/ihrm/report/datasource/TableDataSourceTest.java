@@ -0,0 +1,82 @@
+package com.ihrm.report.datasource;
+
+import com.ihrm.report.excelModel.excel.entity.Cell;
+import com.ihrm.report.excelModel.excel.entity.Row;
+import com.ihrm.report.excelModel.excel.entity.Table;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TableDataSourceTest {
+
+    private static final List<Cell> HEADER = Arrays.asList(
+            Cell.builder().index(0).label("名称").alias("name").build(),
+            Cell.builder().index(1).label("数量").build()
+    );
+
+    private static Row row(final String name, final Object amount) {
+        return Row.build()
+                .addCell(0, Cell.builder().index(0).text(name).value(name).build())
+                .addCell(1, Cell.builder().index(1).value(amount).build());
+    }
+
+    private static JRDesignField field(final String name, final Class<?> type) {
+        final JRDesignField field = new JRDesignField();
+        field.setName(name);
+        field.setValueClass(type);
+        return field;
+    }
+
+    @Test
+    public void mapsFieldsByAliasOrLabelAndCoercesTypes() {
+        final TableDataSource dataSource = TableDataSource.of(Table.builder()
+                .header(HEADER)
+                .body(Arrays.asList(row("a", 12.5), row("b", null)))
+                .build());
+        assertTrue(dataSource.next());
+        assertEquals("a", dataSource.getFieldValue(field("name", String.class)));
+        assertNull("有 alias 时不按 label 对应", dataSource.getFieldValue(field("名称", String.class)));
+        assertEquals(new BigDecimal("12.5"), dataSource.getFieldValue(field("数量", BigDecimal.class)));
+        assertEquals(12L, dataSource.getFieldValue(field("数量", Long.class)));
+        assertEquals("12.5", dataSource.getFieldValue(field("数量", String.class)));
+        assertTrue(dataSource.next());
+        assertNull(dataSource.getFieldValue(field("数量", BigDecimal.class)));
+        assertFalse(dataSource.next());
+        assertNull("读完之后没有当前行", dataSource.getFieldValue(field("name", String.class)));
+    }
+
+    @Test
+    public void pullsRowsLazily() {
+        final AtomicInteger pulled = new AtomicInteger();
+        final Iterator<Row> body = new Iterator<Row>() {
+            @Override
+            public boolean hasNext() {
+                return pulled.get() < 1000;
+            }
+
+            @Override
+            public Row next() {
+                return row("r" + pulled.incrementAndGet(), pulled.get());
+            }
+        };
+        final TableDataSource dataSource = new TableDataSource(HEADER, body);
+        assertEquals(0, pulled.get());
+        assertTrue(dataSource.next());
+        assertEquals(1, pulled.get());
+        assertEquals("r1", dataSource.getFieldValue(field("name", String.class)));
+    }
+
+    @Test
+    public void emptyBody() {
+        assertFalse(TableDataSource.of(Table.builder().header(HEADER).build()).next());
+        assertFalse(new TableDataSource(HEADER, Collections.emptyIterator()).next());
+    }
+}
@@ -0,0 +1,42 @@
+package com.ihrm.report.enums;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReportFormatTest {
+
+    @Test
+    public void explicitFormatWins() {
+        assertEquals(ReportFormat.XLSX, ReportFormat.negotiate("xlsx", "application/pdf"));
+        assertEquals(ReportFormat.CSV, ReportFormat.negotiate(".csv", null));
+        assertEquals(ReportFormat.DOCX, ReportFormat.negotiate(" DOCX ", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormatIsRejected() {
+        ReportFormat.negotiate("odt", "application/pdf");
+    }
+
+    @Test
+    public void defaultsToPdf() {
+        assertEquals(ReportFormat.PDF, ReportFormat.negotiate(null, null));
+        assertEquals(ReportFormat.PDF, ReportFormat.negotiate("", ""));
+        assertEquals(ReportFormat.PDF, ReportFormat.negotiate(null, "*/*"));
+        assertEquals(ReportFormat.PDF, ReportFormat.negotiate(null, "image/png, application/json"));
+    }
+
+    @Test
+    public void acceptHeaderIsOrderedByQuality() {
+        assertEquals(ReportFormat.CSV, ReportFormat.negotiate(null, "text/csv"));
+        assertEquals(ReportFormat.XLSX,
+                ReportFormat.negotiate(null, "text/csv;q=0.5, application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        assertEquals(ReportFormat.HTML, ReportFormat.negotiate(null, "application/pdf;q=0.2, text/html;q=0.9"));
+    }
+
+    @Test
+    public void concreteTypeBeatsWildcard() {
+        assertEquals(ReportFormat.CSV, ReportFormat.negotiate(null, "*/*, text/csv;q=0.1"));
+        assertEquals(ReportFormat.PDF, ReportFormat.negotiate(null, "image/*, */*;q=0.8"));
+    }
+}
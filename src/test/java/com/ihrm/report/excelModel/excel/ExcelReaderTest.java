@@ -0,0 +1,92 @@
+package com.ihrm.report.excelModel.excel;
+
+import com.ihrm.report.excelModel.util.FPath;
+import lombok.Cleanup;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExcelReaderTest {
+
+    private final List<File> files = new ArrayList<>();
+
+    @After
+    public void delete() {
+        files.forEach(file -> {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        });
+    }
+
+    private File temp(String suffix) throws Exception {
+        File file = File.createTempFile("excel-reader", suffix);
+        files.add(file);
+        return file;
+    }
+
+    private File write(Workbook workbook, String suffix) throws Exception {
+        File file = temp(suffix);
+        workbook.createSheet("数据").createRow(0).createCell(0).setCellValue("原值");
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            workbook.write(outputStream);
+        }
+        workbook.close();
+        return file;
+    }
+
+    private void saveByDefault(Workbook workbook, String suffix) throws Exception {
+        File file = write(workbook, suffix);
+        File target = temp(suffix);
+        @Cleanup ExcelReader reader = ExcelReader.of(file);
+        reader.sheet(0).row(0).cell(0).getCell().setCellValue("修改");
+        reader.saveWorkBook(FPath.of(target));
+        // 保存到原文件
+        reader.saveWorkBook(FPath.of(file));
+        for (File saved : new File[]{target, file}) {
+            @Cleanup ExcelReader check = ExcelReader.of(saved);
+            assertEquals("修改", check.sheet(0).row(0).cell(0).stringValue());
+        }
+    }
+
+    @Test
+    public void defaultReaderCanSaveXlsx() throws Exception {
+        saveByDefault(new XSSFWorkbook(), ".xlsx");
+    }
+
+    @Test
+    public void defaultReaderCanSaveXls() throws Exception {
+        saveByDefault(new HSSFWorkbook(), ".xls");
+    }
+
+    @Test
+    public void readOnlyXlsxIsRevertedOnClose() throws Exception {
+        File file = write(new XSSFWorkbook(), ".xlsx");
+        long length = file.length();
+        long lastModified = file.lastModified();
+        ExcelReader reader = ExcelReader.of(file, true);
+        assertEquals("原值", reader.sheet(0).row(0).cell(0).stringValue());
+        reader.getCell().setCellValue("修改");
+        try {
+            reader.saveWorkBook(FPath.of(temp(".xlsx")));
+            fail("只读打开的 .xlsx 不能保存");
+        } catch (Exception e) {
+            // 只读
+        }
+        reader.close();
+        assertEquals(length, file.length());
+        assertEquals(lastModified, file.lastModified());
+        @Cleanup ExcelReader check = ExcelReader.of(file);
+        assertEquals("原值", check.sheet(0).row(0).cell(0).stringValue());
+    }
+}
@@ -0,0 +1,177 @@
+package com.ihrm.report.excelModel.excel;
+
+import lombok.Cleanup;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link XSSFStreamReader}、{@link HSSFStreamReader} 与 {@link ExcelReader} 逐个单元格对比
+ */
+public class ExcelStreamReaderTest {
+
+    private static final int COLUMNS = 12;
+    private File file;
+
+    @After
+    public void delete() {
+        if (Objects.nonNull(file) && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private File write(Workbook workbook, String suffix) throws Exception {
+        file = File.createTempFile("stream-reader", suffix);
+        CreationHelper helper = workbook.getCreationHelper();
+        CellStyle date = workbook.createCellStyle();
+        date.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+        CellStyle money = workbook.createCellStyle();
+        money.setDataFormat(helper.createDataFormat().getFormat("#,##0.00"));
+        CellStyle percent = workbook.createCellStyle();
+        percent.setDataFormat((short) BuiltinFormats.getBuiltinFormat("0%"));
+
+        Sheet data = workbook.createSheet("数据");
+        String[] headers = {"文本", "整数", "金额", "日期", "布尔", "求和", "拼接", "空白", "错误", "比例", "布尔公式", "共享文本"};
+        Row header = data.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            header.createCell(i).setCellValue(headers[i]);
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2019, Calendar.AUGUST, 6);
+        for (int r = 1; r <= 30; r++) {
+            if (r % 7 == 0) {
+                // 空行
+                continue;
+            }
+            Row row = data.createRow(r);
+            row.createCell(0).setCellValue("名称" + r);
+            row.createCell(1).setCellValue(r);
+            Cell amount = row.createCell(2);
+            amount.setCellValue(r * 1234.567);
+            amount.setCellStyle(money);
+            Cell day = row.createCell(3);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            day.setCellValue(calendar.getTime());
+            day.setCellStyle(date);
+            row.createCell(4).setCellValue(r % 2 == 0);
+            row.createCell(5).setCellFormula("B" + (r + 1) + "+C" + (r + 1));
+            row.createCell(6).setCellFormula("A" + (r + 1) + "&\"-\"&B" + (r + 1));
+            row.createCell(7).setCellStyle(money);
+            row.createCell(8).setCellFormula("1/0");
+            Cell ratio = row.createCell(9);
+            ratio.setCellValue(r / 100.0);
+            ratio.setCellStyle(percent);
+            row.createCell(10).setCellFormula("B" + (r + 1) + ">10");
+            if (r % 3 == 0) {
+                row.createCell(11).setCellValue("重复");
+            }
+        }
+        Sheet hidden = workbook.createSheet("隐藏");
+        hidden.createRow(2).createCell(3).setCellValue("x");
+        hidden.createRow(40).createCell(0).setCellValue(1.5);
+        workbook.setSheetHidden(1, true);
+        workbook.createSheet("空");
+
+        workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            workbook.write(outputStream);
+        }
+        workbook.close();
+        return file;
+    }
+
+    private static String outcome(Supplier<Object> supplier) {
+        try {
+            return String.valueOf(supplier.get());
+        } catch (RuntimeException e) {
+            return "error:" + e.getClass().getName();
+        }
+    }
+
+    private static List<Integer> rows(ISheetReader<?> reader) {
+        List<Integer> rows = new ArrayList<>();
+        while (reader.hasNext()) {
+            rows.add(reader.getRowIndex());
+        }
+        return rows;
+    }
+
+    private static void assertSameCells(File file) {
+        @Cleanup ExcelReader expected = ExcelReader.of(file);
+        @Cleanup ExcelStreamReader actual = ExcelStreamReader.of(file);
+        {
+            assertEquals(expected.sheetCount(), actual.sheetCount());
+            for (int s = 0; s < expected.sheetCount(); s++) {
+                expected.sheet(s);
+                actual.sheet(s);
+                assertEquals(expected.sheetName(), actual.sheetName());
+                assertEquals(expected.isHiddenSheet(), actual.isHiddenSheet());
+                assertTrue(actual.hasSheet().isPresent());
+                int last = expected.getLastRowIndex();
+                for (int r = 0; r <= last; r++) {
+                    expected.row(r);
+                    actual.row(r);
+                    String at = expected.sheetName() + "!" + r;
+                    assertEquals(at, Objects.isNull(expected.getRow()), Objects.isNull(actual.getRow()));
+                    if (Objects.isNull(expected.getRow())) {
+                        continue;
+                    }
+                    for (int c = 0; c < COLUMNS; c++) {
+                        expected.cell(c);
+                        actual.cell(c);
+                        String position = at + ":" + c;
+                        assertEquals(position, expected.cellIsNull(), actual.cellIsNull());
+                        assertEquals(position, expected.cellIsBlank(), actual.cellIsBlank());
+                        assertEquals(position, outcome(expected::cellType), outcome(actual::cellType));
+                        assertEquals(position, outcome(expected::dataType), outcome(actual::dataType));
+                        assertEquals(position, outcome(() -> expected.value(false)), outcome(() -> actual.value(false)));
+                        assertEquals(position, outcome(() -> expected.value(true)), outcome(() -> actual.value(true)));
+                        assertEquals(position, outcome(expected::stringValue), outcome(actual::stringValue));
+                        if (expected.value(false).filter(Number.class::isInstance).isPresent()) {
+                            assertEquals(position, outcome(expected::numberValue), outcome(actual::numberValue));
+                        }
+                        assertEquals(position, outcome(expected::dateValue), outcome(actual::dateValue));
+                        assertEquals(position, outcome(expected::formula), outcome(actual::formula));
+                        assertEquals(position, outcome(expected::dataFormat), outcome(actual::dataFormat));
+                    }
+                }
+                expected.sheet(s);
+                actual.sheet(s);
+                assertEquals(expected.sheetName(), rows(expected), rows(actual));
+            }
+        }
+    }
+
+    @Test
+    public void xlsxMatchesExcelReader() throws Exception {
+        assertSameCells(write(new XSSFWorkbook(), ".xlsx"));
+    }
+
+    @Test
+    public void xlsMatchesExcelReader() throws Exception {
+        assertSameCells(write(new HSSFWorkbook(), ".xls"));
+    }
+
+    @Test
+    public void rereadsFromStartWhenSeekingBackwards() throws Exception {
+        write(new XSSFWorkbook(), ".xlsx");
+        @Cleanup ExcelStreamReader reader = ExcelStreamReader.of(file).sheet(0);
+        assertEquals("名称20", reader.row(20).cell(0).stringValue());
+        assertEquals("名称2", reader.row(2).cell(0).stringValue());
+        assertNull(reader.row(7).getRow());
+    }
+}
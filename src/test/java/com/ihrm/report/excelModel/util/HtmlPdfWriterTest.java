@@ -0,0 +1,96 @@
+package com.ihrm.report.excelModel.util;
+
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class HtmlPdfWriterTest {
+
+    private static final File DEJAVU = new File("/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf");
+
+    private static File css() throws Exception {
+        File css = File.createTempFile("html-pdf", ".css");
+        css.deleteOnExit();
+        Files.write(css.toPath(), "body { font-size: 12px; }".getBytes(StandardCharsets.UTF_8));
+        return css;
+    }
+
+    @Test
+    public void missingFontFallsBackToNextAvailable() throws Exception {
+        assumeTrue(DEJAVU.exists());
+        HtmlPdfWriter.Pipeline pipeline = HtmlPdfWriter.Pipeline.of(css(), "fonts/missing.ttf", DEJAVU.getAbsolutePath());
+        assertTrue(pipeline.font(10).getBaseFont().getPostscriptFontName().startsWith("DejaVuSans"));
+    }
+
+    @Test
+    public void systemFontNamedInCssIsUsed() throws Exception {
+        assumeTrue(DEJAVU.exists());
+        HtmlPdfWriter.Pipeline pipeline = HtmlPdfWriter.Pipeline.of(css(), "fonts/missing.ttf");
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlPdfWriter.of().setPipeline(pipeline).setOutputStream(pdf)
+                .write("<html><body><p style=\"font-family: 'DejaVu Sans Mono'\">text</p></body></html>");
+        PdfReader reader = new PdfReader(pdf.toByteArray());
+        try {
+            PdfDictionary fonts = reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.FONT);
+            assertEquals(1, fonts.size());
+            for (PdfName key : fonts.getKeys()) {
+                assertTrue(fonts.getAsDict(key).getAsName(PdfName.BASEFONT).toString().endsWith("DejaVuSansMono"));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String pages(int count) {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 1; i <= count; i++) {
+            html.append("<p>page ").append(i).append("</p>");
+            if (i < count) {
+                html.append("<div style=\"page-break-after: always\"></div>");
+            }
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static void assertPageNumbers(String pageNumber, int chunkRows) throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        HtmlPdfWriter.of().setPipeline(HtmlPdfWriter.Pipeline.of(css())).setOutputStream(pdf)
+                .setPageNumber(pageNumber).setChunkRows(chunkRows).write(pages(3));
+        PdfReader reader = new PdfReader(pdf.toByteArray());
+        try {
+            assertEquals(3, reader.getNumberOfPages());
+            for (int i = 1; i <= 3; i++) {
+                String text = PdfTextExtractor.getTextFromPage(reader, i).replaceAll("\\s+", " ");
+                assertTrue(text, text.contains("page " + i));
+                assertTrue(text, text.contains("Page " + i + " of 3"));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void pageNumbersInSinglePass() throws Exception {
+        assertPageNumbers("Page {0} of {1}", 0);
+    }
+
+    @Test
+    public void pageNumbersWithFormattedTotal() throws Exception {
+        assertPageNumbers("Page {0} of {1,number,#}", 0);
+    }
+
+    @Test
+    public void pageNumbersWhenChunked() throws Exception {
+        assertPageNumbers("Page {0} of {1}", 10);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ihrm.report.excelModel.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HtmlSplitterTest {
+
+    private static final String HEAD = "<html><head><style>td { color: red; }</style></head><body>";
+    private static final String TAIL = "</body></html>";
+
+    private static String rows(int from, int to) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            rows.append("<tr><td>").append(i).append("</td></tr>");
+        }
+        return rows.toString();
+    }
+
+    @Test
+    public void splitsAtPageBreaks() {
+        List<String> chunks = HtmlSplitter.split(HEAD + "<p>a</p><div style=\"page-break-after: always\"></div><p>b</p>" + TAIL, 10);
+        assertEquals(2, chunks.size());
+        assertEquals(HEAD + "<p>a</p>" + TAIL, chunks.get(0));
+        assertEquals(HEAD + "<p>b</p>" + TAIL, chunks.get(1));
+    }
+
+    @Test
+    public void splitsLongTableRepeatingHeader() {
+        String table = "<table class=\"t\"><caption>c</caption><thead><tr><th>h</th></tr></thead><tbody>" + rows(1, 5)
+                + "</tbody><tfoot><tr><td>f</td></tr></tfoot></table>";
+        List<String> chunks = HtmlSplitter.split(HEAD + table + TAIL, 2);
+        assertEquals(3, chunks.size());
+        assertEquals(HEAD + "<table class=\"t\"><caption>c</caption><thead><tr><th>h</th></tr></thead><tbody>" + rows(1, 2) + "</tbody></table>" + TAIL, chunks.get(0));
+        assertEquals(HEAD + "<table class=\"t\"><thead><tr><th>h</th></tr></thead><tbody>" + rows(3, 4) + "</tbody></table>" + TAIL, chunks.get(1));
+        assertEquals(HEAD + "<table class=\"t\"><thead><tr><th>h</th></tr></thead><tbody>" + rows(5, 5) + "</tbody><tfoot><tr><td>f</td></tr></tfoot></table>" + TAIL, chunks.get(2));
+    }
+
+    @Test
+    public void firstRowOfThIsHeader() {
+        List<String> chunks = HtmlSplitter.split(HEAD + "<table><tr><th>h</th></tr>" + rows(1, 3) + "</table>" + TAIL, 2);
+        assertEquals(2, chunks.size());
+        assertTrue(chunks.get(1).contains("<thead><tr><th>h</th></tr></thead><tbody>" + rows(3, 3) + "</tbody>"));
+    }
+
+    @Test
+    public void reopensWrappersAroundSplitTable() {
+        String html = HEAD + "<div class=\"wrap\"><section id=\"s\"><h1>t</h1><table>" + rows(1, 4) + "</table></section><p>end</p></div>" + TAIL;
+        List<String> chunks = HtmlSplitter.split(html, 2);
+        assertEquals(2, chunks.size());
+        assertEquals(HEAD + "<div class=\"wrap\"><section id=\"s\"><h1>t</h1><table><tbody>" + rows(1, 2) + "</tbody></table></section></div>" + TAIL, chunks.get(0));
+        assertEquals(HEAD + "<div class=\"wrap\"><section id=\"s\"><table><tbody>" + rows(3, 4) + "</tbody></table></section><p>end</p></div>" + TAIL, chunks.get(1));
+    }
+
+    @Test
+    public void reopensWrappersAroundPageBreak() {
+        String html = HEAD + "<div class=\"wrap\"><br/><img src=\"a.png\"><p>a</p><div style=\"page-break-before:always\"></div><p>b</p></div>" + TAIL;
+        List<String> chunks = HtmlSplitter.split(html, 10);
+        assertEquals(2, chunks.size());
+        assertEquals(HEAD + "<div class=\"wrap\"><br/><img src=\"a.png\"><p>a</p></div>" + TAIL, chunks.get(0));
+        assertEquals(HEAD + "<div class=\"wrap\"><p>b</p></div>" + TAIL, chunks.get(1));
+    }
+
+    @Test
+    public void dropsChunksWithOnlyWrappers() {
+        String html = HEAD + "<div class=\"wrap\"><div style=\"page-break-after: always\"></div><p>a</p><div style=\"page-break-after: always\"></div></div>" + TAIL;
+        List<String> chunks = HtmlSplitter.split(html, 10);
+        assertEquals(1, chunks.size());
+        assertEquals(HEAD + "<div class=\"wrap\"><p>a</p></div>" + TAIL, chunks.get(0));
+    }
+
+    @Test
+    public void keepsNestedTablesAndPageBreaksInsideTables() {
+        String nested = "<table><tr><td><table><tr><td>x</td></tr></table></td></tr>" + rows(1, 4) + "</table>";
+        assertEquals(1, HtmlSplitter.split(HEAD + nested + TAIL, 2).size());
+        String breakInCell = "<table><tr><td>a<div style=\"page-break-after: always\"></div>b</td></tr></table>";
+        assertEquals(1, HtmlSplitter.split(HEAD + breakInCell + TAIL, 10).size());
+    }
+
+    @Test
+    public void ignoresTagsInScriptsAndComments() {
+        String html = HEAD + "<div><script>var s = '<div>';</script><!-- <span> --><table>" + rows(1, 4) + "</table></div>" + TAIL;
+        List<String> chunks = HtmlSplitter.split(html, 2);
+        assertEquals(2, chunks.size());
+        assertTrue(chunks.get(0).endsWith("</table></div>" + TAIL));
+        assertTrue(chunks.get(1).startsWith(HEAD + "<div><table>"));
+    }
+
+    @Test
+    public void shortDocumentIsOneChunk() {
+        String html = HEAD + "<table>" + rows(1, 2) + "</table>" + TAIL;
+        assertEquals(java.util.Collections.singletonList(html), HtmlSplitter.split(html, 2));
+    }
+}
@@ -0,0 +1,89 @@
+package com.ihrm.report.function;
+
+import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class AbortableTaskTest {
+
+    private static Callable<?> timeoutCallback(WebAsyncTask<Void> task) {
+        return (Callable<?>) ReflectionTestUtils.getField(task, "timeoutCallback");
+    }
+
+    @Test
+    public void writesThroughWhenNotAborted() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        WebAsyncTask<Void> task = AbortableTask.of(1000, new SimpleAsyncTaskExecutor(), response, res -> {
+            res.setHeader("X-Test", "1");
+            res.getOutputStream().write("ok".getBytes(StandardCharsets.UTF_8));
+        });
+        assertNull(task.getCallable().call());
+        assertEquals("1", response.getHeader("X-Test"));
+        assertEquals("ok", response.getContentAsString());
+    }
+
+    @Test
+    public void timeoutAbortsRunningTask() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        WebAsyncTask<Void> task = AbortableTask.of(1000, new SimpleAsyncTaskExecutor(), response, res -> {
+            AbortableTask.register(() -> closed.set(true));
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            res.setHeader("X-After", "1");
+            res.getOutputStream().write(1);
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> running = executor.submit(task.getCallable());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertSame(CallableProcessingInterceptor.RESULT_NONE, timeoutCallback(task).call());
+            try {
+                running.get(5, TimeUnit.SECONDS);
+                fail("中止后写入应失败");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+            assertTrue("登记的资源被关闭", closed.get());
+            assertTrue("执行线程被中断", interrupted.get());
+            assertNull("中止后设置响应头被忽略", response.getHeader("X-After"));
+            assertEquals(0, response.getContentAsByteArray().length);
+            assertFalse("线程归还前清除中断标记", executor.submit(() -> Thread.currentThread().isInterrupted()).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void abortedBeforeStartSkipsBody() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        WebAsyncTask<Void> task = AbortableTask.of(1000, new SimpleAsyncTaskExecutor(), new MockHttpServletResponse(), res -> ran.set(true));
+        timeoutCallback(task).call();
+        task.getCallable().call();
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void registerOutsideTaskIsIgnored() {
+        AtomicBoolean closed = new AtomicBoolean();
+        AbortableTask.register(() -> closed.set(true));
+        AbortableTask.unregister(() -> closed.set(true));
+        assertFalse(closed.get());
+    }
+}
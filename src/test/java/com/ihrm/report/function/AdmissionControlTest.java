@@ -0,0 +1,83 @@
+package com.ihrm.report.function;
+
+import com.ihrm.report.exception.ServiceBusyException;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class AdmissionControlTest {
+
+    @Test
+    public void releasesPermitOnClose() {
+        AdmissionControl admission = new AdmissionControl("测试", 1, 0, 0, 3);
+        try (AdmissionControl.Permit permit = admission.acquire()) {
+            assertEquals(1, admission.metrics().get("active"));
+            permit.close();
+            assertEquals("重复关闭只释放一次", 0, admission.metrics().get("active"));
+        }
+        try (AdmissionControl.Permit permit = admission.acquire()) {
+            assertEquals(1, admission.metrics().get("active"));
+        }
+        assertEquals(2L, admission.metrics().get("admitted"));
+        assertEquals(2L, admission.metrics().get("completed"));
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() {
+        AdmissionControl admission = new AdmissionControl("测试", 1, 0, 1000, 3);
+        try (AdmissionControl.Permit permit = admission.acquire()) {
+            try {
+                admission.acquire();
+                fail("等待队列已满时应立即拒绝");
+            } catch (ServiceBusyException e) {
+                assertEquals(3, e.getRetryAfter());
+            }
+            assertEquals(1, admission.metrics().get("active"));
+        }
+        assertEquals(1L, admission.metrics().get("rejected"));
+    }
+
+    @Test
+    public void timesOutWhileWaiting() {
+        AdmissionControl admission = new AdmissionControl("测试", 1, 1, 50, 3);
+        try (AdmissionControl.Permit permit = admission.acquire()) {
+            long start = System.currentTimeMillis();
+            try {
+                admission.acquire();
+                fail("等待超时应拒绝");
+            } catch (ServiceBusyException e) {
+                assertTrue(System.currentTimeMillis() - start >= 50);
+            }
+        }
+        assertEquals(1L, admission.metrics().get("timeout"));
+        assertEquals(0, admission.metrics().get("queueDepth"));
+    }
+
+    @Test
+    public void waiterIsAdmittedWhenPermitIsReleased() throws Exception {
+        AdmissionControl admission = new AdmissionControl("测试", 1, 1, 5000, 3);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiter;
+            try (AdmissionControl.Permit permit = admission.acquire()) {
+                waiter = executor.submit(() -> {
+                    try (AdmissionControl.Permit second = admission.acquire()) {
+                        return true;
+                    }
+                });
+                long deadline = System.currentTimeMillis() + 5000;
+                while ((int) admission.metrics().get("queueDepth") == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.yield();
+                }
+                assertEquals(1, admission.metrics().get("queueDepth"));
+            }
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(0, admission.metrics().get("queueDepth"));
+            assertEquals(0, admission.metrics().get("active"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
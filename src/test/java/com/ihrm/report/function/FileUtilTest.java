@@ -0,0 +1,139 @@
+package com.ihrm.report.function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.*;
+
+public class FileUtilTest {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("file-util-", ".txt");
+        Files.write(file.toPath(), "0123456789".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void range() {
+        assertArrayEquals(new long[]{0, 4}, FileUtil.range("bytes=0-4", 10));
+        assertArrayEquals(new long[]{5, 9}, FileUtil.range("bytes=5-", 10));
+        assertArrayEquals(new long[]{7, 9}, FileUtil.range("bytes=-3", 10));
+        assertArrayEquals("后缀超过文件长度时返回整个文件", new long[]{0, 9}, FileUtil.range("bytes=-30", 10));
+        assertArrayEquals("结束位置超过文件长度时截断", new long[]{8, 9}, FileUtil.range("bytes=8-100", 10));
+        assertEquals("多个区间按整个文件返回", 0, FileUtil.range("bytes=0-1,3-4", 10).length);
+        assertEquals(0, FileUtil.range("items=0-1", 10).length);
+        assertEquals(0, FileUtil.range("bytes=a-b", 10).length);
+        assertNull("起始位置超过文件长度", FileUtil.range("bytes=10-", 10));
+        assertNull(FileUtil.range("bytes=5-4", 10));
+        assertNull(FileUtil.range("bytes=-0", 10));
+        assertNull("空文件无法满足后缀区间", FileUtil.range("bytes=-1", 0));
+    }
+
+    @Test
+    public void ifRange() {
+        long lastModified = 1_600_000_000_000L;
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(lastModified).atZone(ZoneOffset.UTC));
+        assertTrue(FileUtil.ifRange(null, "\"a\"", lastModified));
+        assertTrue(FileUtil.ifRange("\"a\"", "\"a\"", lastModified));
+        assertFalse(FileUtil.ifRange("\"b\"", "\"a\"", lastModified));
+        assertFalse("弱校验 ETag 不满足 If-Range", FileUtil.ifRange("W/\"a\"", "\"a\"", lastModified));
+        assertTrue(FileUtil.ifRange(date, "\"a\"", lastModified));
+        assertFalse(FileUtil.ifRange(date, "\"a\"", lastModified + 1000));
+        assertFalse(FileUtil.ifRange("not a date", "\"a\"", lastModified));
+    }
+
+    @Test
+    public void notModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        assertFalse(FileUtil.notModified(request, "\"a\"", 1000));
+        request.addHeader("If-None-Match", "\"b\", W/\"a\"");
+        assertTrue(FileUtil.notModified(request, "\"a\"", 1000));
+        request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "*");
+        assertTrue(FileUtil.notModified(request, "\"a\"", -1));
+        request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"b\"");
+        request.addHeader("If-Modified-Since", 5000L);
+        assertFalse("有 If-None-Match 时忽略 If-Modified-Since", FileUtil.notModified(request, "\"a\"", 1000));
+        request = new MockHttpServletRequest();
+        request.addHeader("If-Modified-Since", 5000L);
+        assertTrue(FileUtil.notModified(request, "\"a\"", 5000));
+        assertFalse(FileUtil.notModified(request, "\"a\"", 6000));
+        assertFalse(FileUtil.notModified(request, "\"a\"", -1));
+    }
+
+    @Test
+    public void downloadPartialContent() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileUtil.download(request, response, file, "文件.txt", "text/plain", "\"e\"");
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("\"e\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    public void downloadRangeNotSatisfiable() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=20-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileUtil.download(request, response, file, "a.txt", "text/plain", "\"e\"");
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void downloadUsesSendfileOnlyForSynchronousRequests() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute(SENDFILE_SUPPORT, true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileUtil.download(request, response, file, "a.txt", "text/plain", null);
+        assertEquals(file.getAbsolutePath(), request.getAttribute(SENDFILE_FILENAME));
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute(SENDFILE_SUPPORT, true);
+        request.setAsyncSupported(true);
+        request.startAsync();
+        response = new MockHttpServletResponse();
+        FileUtil.download(request, response, file, "a.txt", "text/plain", null);
+        assertNull("异步请求中 Tomcat 不处理 sendfile", request.getAttribute(SENDFILE_FILENAME));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void downloadWithCleanupNeverUsesSendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute(SENDFILE_SUPPORT, true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean[] cleaned = {false};
+        FileUtil.download(request, response, file, "a.txt", "text/plain", null, () -> cleaned[0] = true);
+        assertNull(request.getAttribute(SENDFILE_FILENAME));
+        assertEquals("0123456789", response.getContentAsString());
+        assertTrue(cleaned[0]);
+    }
+}
@@ -0,0 +1,105 @@
+package com.ihrm.report.service;
+
+import net.sf.jasperreports.engine.JasperPrint;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class JasperPrintCacheTest {
+
+    private JasperPrintCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new JasperPrintCache();
+        ReflectionTestUtils.setField(cache, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "loadWaitSeconds", 10L);
+        cache.init();
+    }
+
+    private static JasperPrint print(String name) {
+        JasperPrint print = new JasperPrint();
+        print.setName(name);
+        return print;
+    }
+
+    @Test
+    public void keyIgnoresParameterOrder() {
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("a", 1);
+        a.put("b", "x");
+        Map<String, Object> b = new LinkedHashMap<>();
+        b.put("b", "x");
+        b.put("a", 1);
+        assertEquals(cache.key("t", a), cache.key("t", b));
+        assertNotEquals(cache.key("t", a), cache.key("t", Collections.singletonMap("a", 1L)));
+    }
+
+    @Test
+    public void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.load("k", JasperPrint::getName, () -> {
+                        loads.incrementAndGet();
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                        JasperPrint print = print("loaded");
+                        cache.put("k", print);
+                        return "leader";
+                    });
+                }));
+            }
+            start.countDown();
+            int leaders = 0;
+            for (Future<String> result : results) {
+                String value = result.get(5, TimeUnit.SECONDS);
+                assertTrue(value, "leader".equals(value) || "loaded".equals(value));
+                leaders += "leader".equals(value) ? 1 : 0;
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, leaders);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitersLoadThemselvesWhenLeaderDoesNotCache() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.load("k", JasperPrint::getName, () -> {
+                    loads.incrementAndGet();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                    return "uncached";
+                })));
+            }
+            for (Future<String> result : results) {
+                assertEquals("uncached", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(4, loads.get());
+            assertFalse(cache.get("k").isPresent());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
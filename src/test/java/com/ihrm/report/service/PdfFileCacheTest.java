@@ -0,0 +1,128 @@
+package com.ihrm.report.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class PdfFileCacheTest {
+
+    private File root;
+    private PdfFileCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("pdf-cache-").toFile();
+        cache = cache(250);
+    }
+
+    @After
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    private PdfFileCache cache(long maxBytes) {
+        PdfFileCache cache = new PdfFileCache();
+        ReflectionTestUtils.setField(cache, "path", new File(root, "cache").getAbsolutePath());
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(cache, "deleteDelayMillis", 0L);
+        cache.init();
+        return cache;
+    }
+
+    private File pdf(int size) throws IOException {
+        File file = File.createTempFile("pdf-", ".pdf", root);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+
+    private boolean cached(String reportCoded, String fingerprint) {
+        Optional<PdfFileCache.Pin> pin = cache.get(reportCoded, fingerprint);
+        pin.ifPresent(PdfFileCache.Pin::close);
+        return pin.isPresent();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        cache.put("a", "1", pdf(100));
+        cache.put("b", "1", pdf(100));
+        assertTrue(cached("a", "1"));
+        cache.put("c", "1", pdf(100));
+        assertTrue(cached("a", "1"));
+        assertFalse("最久未访问的被淘汰", cached("b", "1"));
+        assertTrue(cached("c", "1"));
+        assertEquals(200L, cache.stats().get("bytes"));
+        assertEquals(1L, cache.stats().get("evictionCount"));
+        assertEquals(0, cache.stats().get("orphans"));
+    }
+
+    @Test
+    public void newFingerprintReplacesOldOne() throws IOException {
+        cache.put("a", "1", pdf(100));
+        cache.put("a", "2", pdf(50));
+        assertFalse(cached("a", "1"));
+        assertTrue(cached("a", "2"));
+        assertEquals(50L, cache.stats().get("bytes"));
+    }
+
+    @Test
+    public void sameFingerprintIsWrittenOnce() throws IOException {
+        cache.put("a", "1", pdf(100));
+        cache.put("a", "1", pdf(100));
+        assertEquals(100L, cache.stats().get("bytes"));
+        assertEquals(1, cache.stats().get("size"));
+    }
+
+    @Test
+    public void pinnedFileIsDeletedAfterRelease() throws IOException {
+        cache.put("a", "1", pdf(100));
+        PdfFileCache.Pin pin = cache.get("a", "1").orElseThrow(AssertionError::new);
+        File file = pin.getFile();
+        cache.put("b", "1", pdf(200));
+        assertFalse("已移出缓存", cached("a", "1"));
+        assertTrue("使用中不删除", file.isFile());
+        assertEquals(200L, cache.stats().get("bytes"));
+        assertEquals(100L, cache.stats().get("orphanBytes"));
+        pin.close();
+        pin.close();
+        assertFalse(file.exists());
+        assertEquals(0L, cache.stats().get("orphanBytes"));
+        assertTrue(cached("b", "1"));
+    }
+
+    @Test
+    public void deleteIsDelayedAfterRelease() throws IOException {
+        ReflectionTestUtils.setField(cache, "deleteDelayMillis", 60_000L);
+        cache.put("a", "1", pdf(100));
+        File file;
+        try (PdfFileCache.Pin pin = cache.get("a", "1").orElseThrow(AssertionError::new)) {
+            file = pin.getFile();
+        }
+        cache.put("b", "1", pdf(200));
+        assertTrue("延迟时间内不删除，留给 sendfile 打开", file.isFile());
+        ReflectionTestUtils.setField(cache, "deleteDelayMillis", 0L);
+        assertFalse(cached("a", "1"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void restoresFromDirectory() throws IOException {
+        cache.put("a", "1", pdf(100));
+        cache.put("b", "1", pdf(100));
+        try (PdfFileCache.Pin pin = cache.get("a", "1").orElseThrow(AssertionError::new)) {
+            // 重启后按修改时间恢复访问顺序
+            assertTrue(pin.getFile().setLastModified(System.currentTimeMillis() - 60_000));
+        }
+        PdfFileCache restored = cache(150);
+        assertEquals(100L, restored.stats().get("bytes"));
+        assertTrue(restored.get("b", "1").isPresent());
+    }
+}